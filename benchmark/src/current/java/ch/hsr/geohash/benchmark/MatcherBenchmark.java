@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.queries.GeoHashBoundingBoxQuery;
+import ch.hsr.geohash.queries.GeoHashQueryMatcher;
+
+/**
+ * checks a stream of points against one query, directly and compiled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MatcherBenchmark {
+	/* the maximum number of cells of the query */
+	@Param({ "8", "64", "512" })
+	public int cells;
+
+	private RandomPoints points;
+	private GeoHashBoundingBoxQuery query;
+	private GeoHashQueryMatcher matcher;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		points = new RandomPoints();
+		query = new GeoHashBoundingBoxQuery(new BoundingBox(-30, 40, -60, 50), cells, 40);
+		matcher = GeoHashQueryMatcher.compile(query);
+	}
+
+	@Benchmark
+	public boolean queryContains() {
+		int i = index++ & RandomPoints.MASK;
+		return query.contains(new WGS84Point(points.latitudes[i], points.longitudes[i]));
+	}
+
+	@Benchmark
+	public boolean matcherMatches() {
+		int i = index++ & RandomPoints.MASK;
+		return matcher.matches(points.latitudes[i], points.longitudes[i]);
+	}
+}
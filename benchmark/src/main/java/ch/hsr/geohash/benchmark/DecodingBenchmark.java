@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.hsr.geohash.GeoHash;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DecodingBenchmark {
+	@Param({ "2", "6", "12" })
+	public int numberOfCharacters;
+
+	private String[] geohashes;
+	private long[] longValues;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		RandomPoints points = new RandomPoints();
+		geohashes = new String[RandomPoints.NUMBER_OF_POINTS];
+		longValues = new long[RandomPoints.NUMBER_OF_POINTS];
+		for (int i = 0; i < RandomPoints.NUMBER_OF_POINTS; i++) {
+			GeoHash hash = GeoHash.withCharacterPrecision(points.latitudes[i], points.longitudes[i], numberOfCharacters);
+			geohashes[i] = hash.toBase32();
+			longValues[i] = hash.longValue();
+		}
+	}
+
+	@Benchmark
+	public GeoHash fromGeohashString() {
+		return GeoHash.fromGeohashString(geohashes[index++ & RandomPoints.MASK]);
+	}
+
+	@Benchmark
+	public GeoHash fromLongValue() {
+		return GeoHash.fromLongValue(longValues[index++ & RandomPoints.MASK], numberOfCharacters * 5);
+	}
+
+	@Benchmark
+	public void fromGeohashStringToBoundingBox(Blackhole blackhole) {
+		GeoHash hash = GeoHash.fromGeohashString(geohashes[index++ & RandomPoints.MASK]);
+		blackhole.consume(hash.getBoundingBox());
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.hsr.geohash.GeoHash;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+	@Param({ "5", "25", "45", "60", "64" })
+	public int numberOfBits;
+
+	private RandomPoints points;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		points = new RandomPoints();
+	}
+
+	@Benchmark
+	public GeoHash withBitPrecision() {
+		int i = index++ & RandomPoints.MASK;
+		return GeoHash.withBitPrecision(points.latitudes[i], points.longitudes[i], numberOfBits);
+	}
+
+	@Benchmark
+	public String geoHashString() {
+		int i = index++ & RandomPoints.MASK;
+		return GeoHash.geoHashStringWithCharacterPrecision(points.latitudes[i], points.longitudes[i],
+				Math.min(numberOfBits, 60) / 5);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.hsr.geohash.GeoHash;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NeighbourBenchmark {
+	@Param({ "10", "30", "60" })
+	public int numberOfBits;
+
+	private GeoHash[] hashes;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		RandomPoints points = new RandomPoints();
+		hashes = new GeoHash[RandomPoints.NUMBER_OF_POINTS];
+		for (int i = 0; i < RandomPoints.NUMBER_OF_POINTS; i++) {
+			hashes[i] = GeoHash.withBitPrecision(points.latitudes[i], points.longitudes[i], numberOfBits);
+		}
+	}
+
+	@Benchmark
+	public GeoHash[] getAdjacent() {
+		return hashes[index++ & RandomPoints.MASK].getAdjacent();
+	}
+
+	@Benchmark
+	public GeoHash getNorthernNeighbour() {
+		return hashes[index++ & RandomPoints.MASK].getNorthernNeighbour();
+	}
+
+	@Benchmark
+	public GeoHash next() {
+		return hashes[index++ & RandomPoints.MASK].next();
+	}
+}
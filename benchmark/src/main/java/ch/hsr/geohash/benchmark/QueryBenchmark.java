@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.queries.GeoHashBoundingBoxQuery;
+import ch.hsr.geohash.queries.GeoHashCircleQuery;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class QueryBenchmark {
+	/* the size of the queried area, as the radius of the circle in meters */
+	@Param({ "100", "10000", "1000000" })
+	public double radius;
+
+	private RandomPoints points;
+	private BoundingBox[] boxes;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		points = new RandomPoints();
+		boxes = new BoundingBox[RandomPoints.NUMBER_OF_POINTS];
+		// roughly the same area as the circle, in degrees at the equator
+		double halfSize = radius / 111000;
+		for (int i = 0; i < RandomPoints.NUMBER_OF_POINTS; i++) {
+			double latitude = Math.max(-80, Math.min(80, points.latitudes[i]));
+			double longitude = Math.max(-170, Math.min(170, points.longitudes[i]));
+			boxes[i] = new BoundingBox(latitude - halfSize, latitude + halfSize, longitude - halfSize, longitude + halfSize);
+		}
+	}
+
+	@Benchmark
+	public GeoHashBoundingBoxQuery boundingBoxQuery() {
+		return new GeoHashBoundingBoxQuery(boxes[index++ & RandomPoints.MASK]);
+	}
+
+	@Benchmark
+	public GeoHashCircleQuery circleQuery() {
+		int i = index++ & RandomPoints.MASK;
+		double latitude = Math.max(-80, Math.min(80, points.latitudes[i]));
+		return new GeoHashCircleQuery(new WGS84Point(latitude, points.longitudes[i]), radius);
+	}
+
+	@Benchmark
+	public boolean circleQueryContains() {
+		int i = index++ & RandomPoints.MASK;
+		double latitude = Math.max(-80, Math.min(80, points.latitudes[i]));
+		GeoHashCircleQuery query = new GeoHashCircleQuery(new WGS84Point(latitude, points.longitudes[i]), radius);
+		return query.contains(new WGS84Point(latitude + radius / 222000, points.longitudes[i]));
+	}
+}
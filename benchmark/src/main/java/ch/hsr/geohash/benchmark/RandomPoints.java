@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.Random;
+
+import ch.hsr.geohash.WGS84Point;
+
+/**
+ * A fixed set of random points, so that every run of a benchmark works on the
+ * same input. The number of points is a power of two, so benchmarks can cycle
+ * through them with a mask.
+ */
+final class RandomPoints {
+	static final int NUMBER_OF_POINTS = 1024;
+	static final int MASK = NUMBER_OF_POINTS - 1;
+
+	final double[] latitudes = new double[NUMBER_OF_POINTS];
+	final double[] longitudes = new double[NUMBER_OF_POINTS];
+
+	RandomPoints() {
+		Random rand = new Random(9817298371L);
+		for (int i = 0; i < NUMBER_OF_POINTS; i++) {
+			latitudes[i] = (rand.nextDouble() - 0.5) * 180;
+			longitudes[i] = (rand.nextDouble() - 0.5) * 360;
+		}
+	}
+
+	WGS84Point point(int index) {
+		return new WGS84Point(latitudes[index], longitudes[index]);
+	}
+}
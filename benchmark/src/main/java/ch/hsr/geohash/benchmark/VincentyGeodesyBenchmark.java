@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.util.VincentyGeodesy;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class VincentyGeodesyBenchmark {
+	private WGS84Point[] points;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		RandomPoints randomPoints = new RandomPoints();
+		points = new WGS84Point[RandomPoints.NUMBER_OF_POINTS];
+		for (int i = 0; i < RandomPoints.NUMBER_OF_POINTS; i++) {
+			points[i] = randomPoints.point(i);
+		}
+	}
+
+	@Benchmark
+	public double distanceInMeters() {
+		int i = index++;
+		return VincentyGeodesy.distanceInMeters(points[i & RandomPoints.MASK], points[(i + 1) & RandomPoints.MASK]);
+	}
+
+	@Benchmark
+	public WGS84Point moveInDirection() {
+		int i = index++ & RandomPoints.MASK;
+		return VincentyGeodesy.moveInDirection(points[i], i % 360, 10000);
+	}
+}
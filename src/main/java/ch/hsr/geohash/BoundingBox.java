@@ -8,11 +8,21 @@
  */
 package ch.hsr.geohash;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+
 import ch.hsr.geohash.util.DoubleUtil;
 
 public class BoundingBox implements Serializable {
 	private static final long serialVersionUID = -7145192134410261076L;
+	/**
+	 * the number of bytes of the binary form written by
+	 * {@link #writeTo(DataOutput)}.
+	 */
+	public static final int BYTES = 32;
 	private double southLatitude;
 	private double northLatitude;
 	private double westLongitude;
@@ -304,4 +314,52 @@ public class BoundingBox implements Serializable {
 	public boolean intersects180Meridian() {
 		return intersects180Meridian;
 	}
+
+	/**
+	 * writes the binary form of this box: the south and north latitudes and
+	 * the west and east longitudes as doubles.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeDouble(southLatitude);
+		out.writeDouble(northLatitude);
+		out.writeDouble(westLongitude);
+		out.writeDouble(eastLongitude);
+	}
+
+	/**
+	 * puts the binary form of this box, see {@link #writeTo(DataOutput)},
+	 * into the given buffer.
+	 *
+	 * @return the buffer.
+	 */
+	public ByteBuffer writeTo(ByteBuffer buffer) {
+		return buffer.putDouble(southLatitude).putDouble(northLatitude).putDouble(westLongitude)
+				.putDouble(eastLongitude);
+	}
+
+	/**
+	 * reads a box written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the coordinates do not make up a box.
+	 */
+	public static BoundingBox readFrom(DataInput in) throws IOException {
+		double southLatitude = in.readDouble();
+		double northLatitude = in.readDouble();
+		double westLongitude = in.readDouble();
+		return new BoundingBox(southLatitude, northLatitude, westLongitude, in.readDouble());
+	}
+
+	/**
+	 * reads a box put into a buffer by {@link #writeTo(ByteBuffer)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the coordinates do not make up a box.
+	 */
+	public static BoundingBox readFrom(ByteBuffer buffer) {
+		double southLatitude = buffer.getDouble();
+		double northLatitude = buffer.getDouble();
+		double westLongitude = buffer.getDouble();
+		return new BoundingBox(southLatitude, northLatitude, westLongitude, buffer.getDouble());
+	}
 }
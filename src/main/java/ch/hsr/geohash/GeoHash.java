@@ -8,8 +8,16 @@
  */
 package ch.hsr.geohash;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.Serializable;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+
+import ch.hsr.geohash.util.Base32;
+import ch.hsr.geohash.util.LongUtil;
+import ch.hsr.geohash.util.SphericalGeodesy;
 
 @SuppressWarnings("javadoc")
 public final class GeoHash implements Comparable<GeoHash>, Serializable {
@@ -17,27 +25,20 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	public static final int MAX_CHARACTER_PRECISION = 12;
 	
 	private static final long serialVersionUID = -8553214249630252175L;
-	private static final int[] BITS = { 16, 8, 4, 2, 1 };
-	private static final int BASE32_BITS = 5;
 	public static final long FIRST_BIT_FLAGGED = 0x8000000000000000l;
-	private static final char[] base32 = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'b', 'c', 'd', 'e', 'f',
-			'g', 'h', 'j', 'k', 'm', 'n', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z' };
-
-	private static final int[] decodeArray = new int['z' + 1];
-
-	static {
-		Arrays.fill(decodeArray, -1);
-		int sz = base32.length;
-		for (int i = 0; i < sz; i++) {
-			decodeArray[base32[i]] = i;
-		}
-	}
+	/**
+	 * the number of bytes of the binary form written by
+	 * {@link #writeTo(DataOutput)}.
+	 */
+	public static final int BYTES = 9;
 
 	protected long bits = 0;
+	/*
+	 * only set if this hash was built from a point. The bounding box and its
+	 * center are computed from the bits when they are requested.
+	 */
 	private WGS84Point point;
 
-	private BoundingBox boundingBox;
-
 	protected byte significantBits = 0;
 
 	protected GeoHash() {
@@ -61,16 +62,83 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	 * at the same time defines this hash's bounding box.
 	 */
 	public static GeoHash withBitPrecision(double latitude, double longitude, int numberOfBits) {
+		checkBitPrecision(numberOfBits);
+		checkCoordinates(latitude, longitude);
+		return new GeoHash(latitude, longitude, numberOfBits);
+	}
+
+	/**
+	 * encode the given coordinates with the given number of bits accuracy,
+	 * returning the same value {@link #longValue()} of the {@link GeoHash}
+	 * built by {@link #withBitPrecision(double, double, int)} would return.
+	 * No objects are created.
+	 */
+	public static long encodeToLong(double latitude, double longitude, int numberOfBits) {
+		checkBitPrecision(numberOfBits);
+		checkCoordinates(latitude, longitude);
+		int latitudeBits = numberOfBits / 2;
+		long latitudeCell = quantize(latitude, -90, 180, latitudeBits);
+		long longitudeCell = quantize(longitude, -180, 360, numberOfBits - latitudeBits);
+		return interleave(latitudeCell, longitudeCell, numberOfBits);
+	}
+
+	/**
+	 * returns the latitude of the center of the bounding box of the hash with
+	 * the given long value and number of significant bits.
+	 */
+	public static double decodeLatitude(long hashValue, int significantBits) {
+		checkBitPrecision(significantBits);
+		int latitudeBits = significantBits / 2;
+		double latitudeSize = 180.0 / (1l << latitudeBits);
+		double south = -90 + latitudeCell(hashValue, significantBits) * latitudeSize;
+		return (south + (south + latitudeSize)) / 2;
+	}
+
+	/**
+	 * returns the longitude of the center of the bounding box of the hash
+	 * with the given long value and number of significant bits.
+	 */
+	public static double decodeLongitude(long hashValue, int significantBits) {
+		checkBitPrecision(significantBits);
+		int longitudeBits = significantBits - significantBits / 2;
+		double longitudeSize = 360.0 / (1l << longitudeBits);
+		double west = -180 + longitudeCell(hashValue, significantBits) * longitudeSize;
+		return (west + (west + longitudeSize)) / 2;
+	}
+
+	/**
+	 * writes the bounding box of the hash with the given long value and number
+	 * of significant bits into the first four elements of bounds, in the order
+	 * south latitude, north latitude, west longitude, east longitude. This is
+	 * the order the {@link BoundingBox} constructor takes them.
+	 */
+	public static void decodeBounds(long hashValue, int significantBits, double[] bounds) {
+		checkBitPrecision(significantBits);
+		int latitudeBits = significantBits / 2;
+		int longitudeBits = significantBits - latitudeBits;
+		double latitudeSize = 180.0 / (1l << latitudeBits);
+		double longitudeSize = 360.0 / (1l << longitudeBits);
+		long latitudeCell = latitudeCell(hashValue, significantBits);
+		long longitudeCell = longitudeCell(hashValue, significantBits);
+		bounds[0] = -90 + latitudeCell * latitudeSize;
+		bounds[1] = -90 + (latitudeCell + 1) * latitudeSize;
+		bounds[2] = -180 + longitudeCell * longitudeSize;
+		bounds[3] = -180 + (longitudeCell + 1) * longitudeSize;
+	}
+
+	private static void checkBitPrecision(int numberOfBits) {
 		if (numberOfBits < 0) {
 			throw new IllegalArgumentException("A Geohash can't be of negative bits long!");
 		}
 		if (numberOfBits > MAX_BIT_PRECISION) {
 			throw new IllegalArgumentException("A Geohash can only be " + MAX_BIT_PRECISION + " bits long!");
 		}
+	}
+
+	private static void checkCoordinates(double latitude, double longitude) {
 		if (Math.abs(latitude) > 90.0 || Math.abs(longitude) > 180.0) {
 			throw new IllegalArgumentException("Can't have lat/lon values out of (-90,90)/(-180/180)");
 		}
-		return new GeoHash(latitude, longitude, numberOfBits);
 	}
 
 	public static GeoHash fromBinaryString(String binaryString) {
@@ -85,9 +153,7 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 			}
 		}
 		geohash.bits <<= (MAX_BIT_PRECISION - geohash.significantBits);
-		long[] latitudeBits = geohash.getRightAlignedLatitudeBits();
-		long[] longitudeBits = geohash.getRightAlignedLongitudeBits();
-		return geohash.recombineLatLonBitsToHash(latitudeBits, longitudeBits);
+		return geohash;
 	}
 
 	/**
@@ -96,64 +162,17 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	 * also be used with functions like within().
 	 */
 	public static GeoHash fromGeohashString(String geohash) {
-		double[] latitudeRange = { -90.0, 90.0 };
-		double[] longitudeRange = { -180.0, 180.0 };
-
-		boolean isEvenBit = true;
 		GeoHash hash = new GeoHash();
-
-		for (int i = 0; i < geohash.length(); i++) {
-			char c = geohash.charAt(i);
-			int cd;
-			if (c >= decodeArray.length || (cd = decodeArray[c]) < 0) {
-				throw new IllegalArgumentException("Invalid character character '" + c + "' in geohash '"+geohash+"'!");
-			}
-			for (int j = 0; j < BASE32_BITS; j++) {
-				int mask = BITS[j];
-				if (isEvenBit) {
-					divideRangeDecode(hash, longitudeRange, (cd & mask) != 0);
-				} else {
-					divideRangeDecode(hash, latitudeRange, (cd & mask) != 0);
-				}
-				isEvenBit = !isEvenBit;
-			}
-		}
-
-		double latitude = (latitudeRange[0] + latitudeRange[1]) / 2;
-		double longitude = (longitudeRange[0] + longitudeRange[1]) / 2;
-
-		hash.point = new WGS84Point(latitude, longitude);
-		setBoundingBox(hash, latitudeRange, longitudeRange);
-		hash.bits <<= (MAX_BIT_PRECISION - hash.significantBits);
+		hash.bits = Base32.decode(geohash);
+		hash.significantBits = (byte) (geohash.length() * Base32.BITS_PER_CHARACTER);
 		return hash;
 	}
 
 	public static GeoHash fromLongValue(long hashVal, int significantBits) {
-		double[] latitudeRange = { -90.0, 90.0 };
-		double[] longitudeRange = { -180.0, 180.0 };
-
-		boolean isEvenBit = true;
+		checkBitPrecision(significantBits);
 		GeoHash hash = new GeoHash();
-
-		String binaryString = Long.toBinaryString(hashVal);
-		while (binaryString.length() < MAX_BIT_PRECISION) {
-			binaryString = "0" + binaryString;
-		}
-		for (int j = 0; j < significantBits; j++) {
-			if (isEvenBit) {
-				divideRangeDecode(hash, longitudeRange, binaryString.charAt(j) != '0');
-			} else {
-				divideRangeDecode(hash, latitudeRange, binaryString.charAt(j) != '0');
-			}
-			isEvenBit = !isEvenBit;
-		}
-
-		double latitude = (latitudeRange[0] + latitudeRange[1]) / 2;
-		double longitude = (longitudeRange[0] + longitudeRange[1]) / 2;
-
-		hash.point = new WGS84Point(latitude, longitude);
-		setBoundingBox(hash, latitudeRange, longitudeRange);
-		hash.bits <<= (MAX_BIT_PRECISION - hash.significantBits);
+		hash.bits = hashVal & maskForSignificantBits(significantBits);
+		hash.significantBits = (byte) significantBits;
 		return hash;
 	}
 
@@ -169,27 +188,108 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 
 	private GeoHash(double latitude, double longitude, int desiredPrecision) {
 		point = new WGS84Point(latitude, longitude);
-		desiredPrecision = Math.min(desiredPrecision, MAX_BIT_PRECISION);
+		desiredPrecision = Math.max(0, Math.min(desiredPrecision, MAX_BIT_PRECISION));
 
-		boolean isEvenBit = true;
-		double[] latitudeRange = { -90, 90 };
-		double[] longitudeRange = { -180, 180 };
+		int latitudeBits = desiredPrecision / 2;
+		int longitudeBits = desiredPrecision - latitudeBits;
+		long latitudeCell = quantize(latitude, -90, 180, latitudeBits);
+		long longitudeCell = quantize(longitude, -180, 360, longitudeBits);
 
-		while (significantBits < desiredPrecision) {
-			if (isEvenBit) {
-				divideRangeEncode(longitude, longitudeRange);
-			} else {
-				divideRangeEncode(latitude, latitudeRange);
-			}
-			isEvenBit = !isEvenBit;
+		bits = interleave(latitudeCell, longitudeCell, desiredPrecision);
+		significantBits = (byte) desiredPrecision;
+	}
+
+	/**
+	 * maps the value to the index of the cell containing it, if the range
+	 * starting at min is split into 2^numberOfBits cells. This yields exactly
+	 * the bits that halving the range numberOfBits times would yield, because
+	 * all cell boundaries are exactly representable doubles.
+	 */
+	static long quantize(double value, double min, double range, int numberOfBits) {
+		long cells = 1l << numberOfBits;
+		double cellSize = range / cells;
+		long cell = (long) ((value - min) / cellSize);
+		if (cell >= cells) {
+			cell = cells - 1;
+		} else if (cell < 0) {
+			cell = 0;
+		}
+		// the estimate can be off by one next to a cell boundary, fix it
+		// using the exact boundaries.
+		while (cell > 0 && value < min + cell * cellSize) {
+			cell--;
+		}
+		while (cell < cells - 1 && value >= min + (cell + 1) * cellSize) {
+			cell++;
+		}
+		return cell;
+	}
+
+	/**
+	 * interleaves the right aligned latitude and longitude cell indexes into a
+	 * left aligned hash value, starting with the longitude. This is the
+	 * inverse of {@link #latitudeCell(long, int)} and
+	 * {@link #longitudeCell(long, int)}.
+	 */
+	public static long interleave(long latitudeCell, long longitudeCell, int numberOfBits) {
+		if (numberOfBits == 0) {
+			return 0;
+		}
+		long value;
+		if (numberOfBits % 2 == 0) {
+			value = (LongUtil.spreadBits(longitudeCell) << 1) | LongUtil.spreadBits(latitudeCell);
+		} else {
+			value = LongUtil.spreadBits(longitudeCell) | (LongUtil.spreadBits(latitudeCell) << 1);
+		}
+		return value << (MAX_BIT_PRECISION - numberOfBits);
+	}
+
+	/**
+	 * returns the right aligned latitude cell index of a left aligned hash
+	 * value, i.e. its row counted from the south pole. The latitude bits are
+	 * the odd bits of the hash, counting from the left.
+	 */
+	public static long latitudeCell(long hashValue, int significantBits) {
+		long value = rightAlign(hashValue, significantBits);
+		return significantBits % 2 == 0 ? LongUtil.compactBits(value) : LongUtil.compactBits(value >>> 1);
+	}
+
+	/**
+	 * returns the right aligned longitude cell index of a left aligned hash
+	 * value, i.e. its column counted from the 180th meridian eastwards. The
+	 * longitude bits are the even bits of the hash, counting from the left.
+	 */
+	public static long longitudeCell(long hashValue, int significantBits) {
+		long value = rightAlign(hashValue, significantBits);
+		return significantBits % 2 == 0 ? LongUtil.compactBits(value >>> 1) : LongUtil.compactBits(value);
+	}
+
+	/**
+	 * returns the mask of the given number of significant bits in a left
+	 * aligned hash value, i.e. that many one bits from the left. It is 0 for 0
+	 * bits and all ones for 64 bits.
+	 */
+	public static long maskForSignificantBits(int significantBits) {
+		if (significantBits == 0) {
+			return 0;
 		}
+		return -1l << (MAX_BIT_PRECISION - significantBits);
+	}
 
-		setBoundingBox(this, latitudeRange, longitudeRange);
-		bits <<= (MAX_BIT_PRECISION - desiredPrecision);
+	/**
+	 * returns the last, i.e. greatest unsigned, long value that starts with
+	 * the significant bits of the given hash value. For a hash of 64 bits this
+	 * is the hash value itself.
+	 */
+	public static long lastLongValue(long hashValue, int significantBits) {
+		return hashValue | ~maskForSignificantBits(significantBits);
 	}
 
-	private static void setBoundingBox(GeoHash hash, double[] latitudeRange, double[] longitudeRange) {
-		hash.boundingBox = new BoundingBox(latitudeRange[0], latitudeRange[1], longitudeRange[0], longitudeRange[1]);
+	private static long rightAlign(long hashValue, int significantBits) {
+		if (significantBits == 0) {
+			return 0;
+		}
+		return hashValue >>> (MAX_BIT_PRECISION - significantBits);
 	}
 
 	public GeoHash next(int step) {
@@ -246,41 +346,18 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 		return two.ord() - one.ord();
 	}
 
-	private void divideRangeEncode(double value, double[] range) {
-		double mid = (range[0] + range[1]) / 2;
-		if (value >= mid) {
-			addOnBitToEnd();
-			range[0] = mid;
-		} else {
-			addOffBitToEnd();
-			range[1] = mid;
-		}
-	}
-
-	private static void divideRangeDecode(GeoHash hash, double[] range, boolean b) {
-		double mid = (range[0] + range[1]) / 2;
-		if (b) {
-			hash.addOnBitToEnd();
-			range[0] = mid;
-		} else {
-			hash.addOffBitToEnd();
-			range[1] = mid;
-		}
-	}
-
 	/**
 	 * returns the 8 adjacent hashes for this one. They are in the following
 	 * order:<br>
 	 * N, NE, E, SE, S, SW, W, NW
 	 */
 	public GeoHash[] getAdjacent() {
-		GeoHash northern = getNorthernNeighbour();
-		GeoHash eastern = getEasternNeighbour();
-		GeoHash southern = getSouthernNeighbour();
-		GeoHash western = getWesternNeighbour();
-		return new GeoHash[] { northern, northern.getEasternNeighbour(), eastern, southern.getEasternNeighbour(),
-				southern,
-				southern.getWesternNeighbour(), western, northern.getWesternNeighbour() };
+		long[] neighbours = getAdjacentLongValues();
+		GeoHash[] adjacent = new GeoHash[neighbours.length];
+		for (int i = 0; i < neighbours.length; i++) {
+			adjacent[i] = fromLongValue(neighbours[i], significantBits);
+		}
+		return adjacent;
 	}
 
 	/**
@@ -306,18 +383,7 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 		if (significantBits % 5 != 0) {
 			throw new IllegalStateException("Cannot convert a geohash to base32 if the precision is not a multiple of 5.");
 		}
-		StringBuilder buf = new StringBuilder();
-
-		long firstFiveBitsMask = 0xf800000000000000l;
-		long bitsCopy = bits;
-		int partialChunks = (int) Math.ceil(((double) significantBits / 5));
-
-		for (int i = 0; i < partialChunks; i++) {
-			int pointer = (int) ((bitsCopy & firstFiveBitsMask) >>> 59);
-			buf.append(base32[pointer]);
-			bitsCopy <<= 5;
-		}
-		return buf.toString();
+		return Base32.encode(bits, significantBits / Base32.BITS_PER_CHARACTER);
 	}
 
 	/**
@@ -333,15 +399,18 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	 * not use the {@link GeoHash}s special abilities.s</i>
 	 */
 	public boolean contains(WGS84Point point) {
-		return boundingBox.contains(point);
+		return getBoundingBox().contains(point);
 	}
 
 	/**
 	 * returns the {@link WGS84Point} that was originally used to set up this.<br>
-	 * If it was built from a base32-{@link String}, this is the center point of
-	 * the bounding box.
+	 * If it was built from a base32-{@link String}, or read from its binary or
+	 * serialized form, this is the center point of the bounding box.
 	 */
 	public WGS84Point getOriginatingPoint() {
+		if (point == null) {
+			return getBoundingBoxCenter();
+		}
 		return point;
 	}
 
@@ -351,96 +420,157 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	 */
 	// TODO: make sure this method works as intented for corner cases!
 	public WGS84Point getBoundingBoxCenter() {
-		return boundingBox.getCenter();
+		return new WGS84Point(decodeLatitude(bits, significantBits), decodeLongitude(bits, significantBits));
 	}
 
+	/**
+	 * returns the bounding box of this {@link GeoHash}. It is computed from
+	 * the bits on every call, so the returned box can be modified freely.
+	 */
 	public BoundingBox getBoundingBox() {
-		return boundingBox;
+		double[] bounds = new double[4];
+		decodeBounds(bits, significantBits, bounds);
+		return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]);
 	}
 
+	/**
+	 * returns whether the bounding box of this hash contains all points within
+	 * the given radius in meters around the given point. The circle is
+	 * approximated by {@link SphericalGeodesy#circleBoundingBox(WGS84Point, double)},
+	 * which is slightly larger.
+	 */
 	public boolean enclosesCircleAroundPoint(WGS84Point point, double radius) {
-		return false;
-	}
-
-	protected GeoHash recombineLatLonBitsToHash(long[] latBits, long[] lonBits) {
-		GeoHash hash = new GeoHash();
-		boolean isEvenBit = false;
-		latBits[0] <<= (MAX_BIT_PRECISION - latBits[1]);
-		lonBits[0] <<= (MAX_BIT_PRECISION - lonBits[1]);
-		double[] latitudeRange = { -90.0, 90.0 };
-		double[] longitudeRange = { -180.0, 180.0 };
-
-		for (int i = 0; i < latBits[1] + lonBits[1]; i++) {
-			if (isEvenBit) {
-				divideRangeDecode(hash, latitudeRange, (latBits[0] & FIRST_BIT_FLAGGED) == FIRST_BIT_FLAGGED);
-				latBits[0] <<= 1;
-			} else {
-				divideRangeDecode(hash, longitudeRange, (lonBits[0] & FIRST_BIT_FLAGGED) == FIRST_BIT_FLAGGED);
-				lonBits[0] <<= 1;
-			}
-			isEvenBit = !isEvenBit;
+		if (significantBits == 0) {
+			return true;
 		}
-		hash.bits <<= (MAX_BIT_PRECISION - hash.significantBits);
-		setBoundingBox(hash, latitudeRange, longitudeRange);
-		hash.point = hash.boundingBox.getCenter();
-		return hash;
+		BoundingBox circle = SphericalGeodesy.circleBoundingBox(point, radius);
+		if (circle.intersects180Meridian()) {
+			return false;
+		}
+		double[] bounds = new double[4];
+		decodeBounds(bits, significantBits, bounds);
+		return bounds[0] <= circle.getSouthLatitude() && circle.getNorthLatitude() <= bounds[1]
+				&& bounds[2] <= circle.getWestLongitude() && circle.getEastLongitude() <= bounds[3];
 	}
 
 	public GeoHash getNorthernNeighbour() {
-		long[] latitudeBits = getRightAlignedLatitudeBits();
-		long[] longitudeBits = getRightAlignedLongitudeBits();
-		latitudeBits[0] += 1;
-		latitudeBits[0] = maskLastNBits(latitudeBits[0], latitudeBits[1]);
-		return recombineLatLonBitsToHash(latitudeBits, longitudeBits);
+		long value = rightAlign(bits, significantBits);
+		long latitudeMask = latitudeMask(significantBits);
+		return withRightAlignedValue(increment(value, latitudeMask) | (value & ~latitudeMask));
 	}
 
 	public GeoHash getSouthernNeighbour() {
-		long[] latitudeBits = getRightAlignedLatitudeBits();
-		long[] longitudeBits = getRightAlignedLongitudeBits();
-		latitudeBits[0] -= 1;
-		latitudeBits[0] = maskLastNBits(latitudeBits[0], latitudeBits[1]);
-		return recombineLatLonBitsToHash(latitudeBits, longitudeBits);
+		long value = rightAlign(bits, significantBits);
+		long latitudeMask = latitudeMask(significantBits);
+		return withRightAlignedValue(decrement(value, latitudeMask) | (value & ~latitudeMask));
 	}
 
 	public GeoHash getEasternNeighbour() {
-		long[] latitudeBits = getRightAlignedLatitudeBits();
-		long[] longitudeBits = getRightAlignedLongitudeBits();
-		longitudeBits[0] += 1;
-		longitudeBits[0] = maskLastNBits(longitudeBits[0], longitudeBits[1]);
-		return recombineLatLonBitsToHash(latitudeBits, longitudeBits);
+		long value = rightAlign(bits, significantBits);
+		long longitudeMask = longitudeMask(significantBits);
+		return withRightAlignedValue(increment(value, longitudeMask) | (value & ~longitudeMask));
 	}
 
 	public GeoHash getWesternNeighbour() {
-		long[] latitudeBits = getRightAlignedLatitudeBits();
-		long[] longitudeBits = getRightAlignedLongitudeBits();
-		longitudeBits[0] -= 1;
-		longitudeBits[0] = maskLastNBits(longitudeBits[0], longitudeBits[1]);
-		return recombineLatLonBitsToHash(latitudeBits, longitudeBits);
+		long value = rightAlign(bits, significantBits);
+		long longitudeMask = longitudeMask(significantBits);
+		return withRightAlignedValue(decrement(value, longitudeMask) | (value & ~longitudeMask));
 	}
 
-	protected long[] getRightAlignedLatitudeBits() {
-		long copyOfBits = bits << 1;
-		long value = extractEverySecondBit(copyOfBits, getNumberOfLatLonBits()[0]);
-		return new long[] { value, getNumberOfLatLonBits()[0] };
+	/**
+	 * returns the long values of the 8 adjacent hashes for this one, in the
+	 * same order as {@link #getAdjacent()}.
+	 */
+	public long[] getAdjacentLongValues() {
+		long[] neighbours = new long[8];
+		adjacentLongValues(bits, significantBits, neighbours);
+		return neighbours;
 	}
 
-	protected long[] getRightAlignedLongitudeBits() {
-		long copyOfBits = bits;
-		long value = extractEverySecondBit(copyOfBits, getNumberOfLatLonBits()[1]);
-		return new long[] { value, getNumberOfLatLonBits()[1] };
+	/**
+	 * writes the long values of the 8 hashes adjacent to the hash with the
+	 * given long value and number of significant bits into the first 8
+	 * elements of neighbours. They are in the following order:<br>
+	 * N, NE, E, SE, S, SW, W, NW<br>
+	 * The latitude and longitude bits are moved as dilated integers, i.e. they
+	 * are incremented and decremented in place without de-interleaving them.
+	 */
+	public static void adjacentLongValues(long hashValue, int significantBits, long[] neighbours) {
+		checkBitPrecision(significantBits);
+		long value = rightAlign(hashValue, significantBits);
+		long latitudeMask = latitudeMask(significantBits);
+		long longitudeMask = longitudeMask(significantBits);
+
+		long latitude = value & latitudeMask;
+		long north = increment(value, latitudeMask);
+		long south = decrement(value, latitudeMask);
+		long longitude = value & longitudeMask;
+		long east = increment(value, longitudeMask);
+		long west = decrement(value, longitudeMask);
+
+		neighbours[0] = leftAlign(north | longitude, significantBits);
+		neighbours[1] = leftAlign(north | east, significantBits);
+		neighbours[2] = leftAlign(latitude | east, significantBits);
+		neighbours[3] = leftAlign(south | east, significantBits);
+		neighbours[4] = leftAlign(south | longitude, significantBits);
+		neighbours[5] = leftAlign(south | west, significantBits);
+		neighbours[6] = leftAlign(latitude | west, significantBits);
+		neighbours[7] = leftAlign(north | west, significantBits);
 	}
 
-	private long extractEverySecondBit(long copyOfBits, int numberOfBits) {
-		long value = 0;
-		for (int i = 0; i < numberOfBits; i++) {
-			if ((copyOfBits & FIRST_BIT_FLAGGED) == FIRST_BIT_FLAGGED) {
-				value |= 0x1;
-			}
-			value <<= 1;
-			copyOfBits <<= 2;
+	/**
+	 * adds one to the bits of value selected by mask, wrapping around.
+	 */
+	private static long increment(long value, long mask) {
+		return ((value | ~mask) + 1) & mask;
+	}
+
+	/**
+	 * subtracts one from the bits of value selected by mask, wrapping around.
+	 */
+	private static long decrement(long value, long mask) {
+		return ((value & mask) - 1) & mask;
+	}
+
+	/**
+	 * the mask of the latitude bits in a right aligned hash value.
+	 */
+	private static long latitudeMask(int significantBits) {
+		long latitudeBits = significantBits % 2 == 0 ? 0x5555555555555555l : 0xaaaaaaaaaaaaaaaal;
+		return latitudeBits & usedBitsMask(significantBits);
+	}
+
+	/**
+	 * the mask of the longitude bits in a right aligned hash value.
+	 */
+	private static long longitudeMask(int significantBits) {
+		return ~latitudeMask(significantBits) & usedBitsMask(significantBits);
+	}
+
+	private static long usedBitsMask(int significantBits) {
+		if (significantBits == 0) {
+			return 0;
+		}
+		return 0xffffffffffffffffl >>> (MAX_BIT_PRECISION - significantBits);
+	}
+
+	private static long leftAlign(long value, int significantBits) {
+		if (significantBits == 0) {
+			return 0;
 		}
-		value >>>= 1;
-		return value;
+		return value << (MAX_BIT_PRECISION - significantBits);
+	}
+
+	private GeoHash withRightAlignedValue(long value) {
+		return fromLongValue(leftAlign(value, significantBits), significantBits);
+	}
+
+	protected long[] getRightAlignedLatitudeBits() {
+		return new long[] { latitudeCell(bits, significantBits), getNumberOfLatLonBits()[0] };
+	}
+
+	protected long[] getRightAlignedLongitudeBits() {
+		return new long[] { longitudeCell(bits, significantBits), getNumberOfLatLonBits()[1] };
 	}
 
 	protected int[] getNumberOfLatLonBits() {
@@ -465,9 +595,9 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	@Override
 	public String toString() {
 		if (significantBits % 5 == 0) {
-			return String.format("%s -> %s -> %s", padLeft(Long.toBinaryString(bits), 64, "0"), boundingBox, toBase32());
+			return String.format("%s -> %s -> %s", padLeft(Long.toBinaryString(bits), 64, "0"), getBoundingBox(), toBase32());
 		} else {
-			return String.format("%s -> %s, bits: %d", padLeft(Long.toBinaryString(bits), 64, "0"), boundingBox, significantBits);
+			return String.format("%s -> %s, bits: %d", padLeft(Long.toBinaryString(bits), 64, "0"), getBoundingBox(), significantBits);
 		}
 	}
 
@@ -515,19 +645,77 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 	 * return a long mask for this hashes significant bits.
 	 */
 	private long mask() {
-		if (significantBits == 0) {
-			return 0;
-		} else {
-			long value = FIRST_BIT_FLAGGED;
-			value >>= (significantBits - 1);
-			return value;
-		}
+		return maskForSignificantBits(significantBits);
+	}
+
+
+	/**
+	 * writes the binary form of this hash: the number of significant bits as a
+	 * byte, followed by the bits as a long. The point the hash was built from
+	 * is not written, see {@link #getOriginatingPoint()}.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeByte(significantBits);
+		out.writeLong(bits);
+	}
+
+	/**
+	 * puts the binary form of this hash, see {@link #writeTo(DataOutput)},
+	 * into the given buffer.
+	 *
+	 * @return the buffer.
+	 */
+	public ByteBuffer writeTo(ByteBuffer buffer) {
+		return buffer.put(significantBits).putLong(bits);
+	}
+
+	/**
+	 * reads a hash written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the number of significant bits is out of range.
+	 */
+	public static GeoHash readFrom(DataInput in) throws IOException {
+		int significantBits = in.readUnsignedByte();
+		return fromLongValue(in.readLong(), significantBits);
+	}
+
+	/**
+	 * reads a hash put into a buffer by {@link #writeTo(ByteBuffer)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the number of significant bits is out of range.
+	 */
+	public static GeoHash readFrom(ByteBuffer buffer) {
+		int significantBits = buffer.get() & 0xff;
+		return fromLongValue(buffer.getLong(), significantBits);
+	}
+
+	/**
+	 * hashes are serialized as their bits and number of significant bits
+	 * only, like {@link #writeTo(DataOutput)}.
+	 */
+	private Object writeReplace() {
+		return new SerializedForm(bits, significantBits);
 	}
 
-	private long maskLastNBits(long value, long n) {
-		long mask = 0xffffffffffffffffl;
-		mask >>>= (MAX_BIT_PRECISION - n);
-		return value & mask;
+	private static final class SerializedForm implements Serializable {
+		private static final long serialVersionUID = 1l;
+		private final long bits;
+		private final byte significantBits;
+
+		SerializedForm(long bits, byte significantBits) {
+			this.bits = bits;
+			this.significantBits = significantBits;
+		}
+
+		private Object readResolve() throws InvalidObjectException {
+			try {
+				return fromLongValue(bits, significantBits);
+			} catch (IllegalArgumentException e) {
+				throw new InvalidObjectException(e.getMessage());
+			}
+		}
 	}
 
 	@Override
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Encodes and decodes whole columns of coordinates and hash values at once.
+ * The results are the same as calling {@link GeoHash#encodeToLong(double, double, int)},
+ * {@link GeoHash#decodeLatitude(long, int)} and
+ * {@link GeoHash#decodeLongitude(long, int)} once per row, but no objects are
+ * created and out of range rows do not abort the batch.<br>
+ * Rows are marked valid in a bitmap of longs, where row i is bit (i % 64) of
+ * element (i / 64). Invalid rows, i.e. coordinates out of range or NaN, get
+ * the hash value 0 and a cleared bit.
+ */
+public final class GeoHashBatch {
+
+	/**
+	 * the number of rows below which a parallel encode is not split any
+	 * further. This is a multiple of 64, see {@link EncodeTask}.
+	 */
+	static final int PARALLEL_CHUNK_ROWS = 1 << 14;
+
+	private GeoHashBatch() {
+	}
+
+	/**
+	 * returns the number of longs a validity bitmap for the given number of
+	 * rows needs.
+	 */
+	public static int validityLength(int numberOfRows) {
+		return (numberOfRows + 63) >>> 6;
+	}
+
+	/**
+	 * returns whether the given row is marked valid in the bitmap.
+	 */
+	public static boolean isValid(long[] validity, int row) {
+		return (validity[row >>> 6] & (1l << row)) != 0;
+	}
+
+	/**
+	 * encodes all rows of the given columns with the given number of bits.
+	 * 
+	 * @return the number of valid rows.
+	 */
+	public static int encode(double[] latitudes, double[] longitudes, int numberOfBits, long[] hashes, long[] validity) {
+		checkColumnLengths(latitudes.length, longitudes.length);
+		return encode(latitudes, longitudes, 0, latitudes.length, numberOfBits, hashes, validity);
+	}
+
+	/**
+	 * encodes the rows [offset, offset + length) of the given columns with the
+	 * given number of bits. The rows keep their index in hashes and in the
+	 * validity bitmap, bits of other rows in the bitmap are not touched.
+	 * 
+	 * @return the number of valid rows.
+	 */
+	public static int encode(double[] latitudes, double[] longitudes, int offset, int length, int numberOfBits,
+			long[] hashes, long[] validity) {
+		checkBitPrecision(numberOfBits);
+		checkRange(offset, length, latitudes.length);
+		checkRange(offset, length, longitudes.length);
+		checkRange(offset, length, hashes.length);
+		checkRange(offset >>> 6, validityLength(offset + length) - (offset >>> 6), validity.length);
+
+		int latitudeBits = numberOfBits / 2;
+		int longitudeBits = numberOfBits - latitudeBits;
+		int validRows = 0;
+		int end = offset + length;
+		for (int wordStart = offset; wordStart < end; wordStart = (wordStart | 63) + 1) {
+			int wordEnd = Math.min(end, (wordStart | 63) + 1);
+			long word = 0;
+			for (int i = wordStart; i < wordEnd; i++) {
+				double latitude = latitudes[i];
+				double longitude = longitudes[i];
+				// NaN fails both comparisons and is thus invalid as well
+				boolean valid = Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180;
+				if (!valid) {
+					latitude = 0;
+					longitude = 0;
+				}
+				long hash = GeoHash.interleave(GeoHash.quantize(latitude, -90, 180, latitudeBits),
+						GeoHash.quantize(longitude, -180, 360, longitudeBits), numberOfBits);
+				long validBit = valid ? 1l : 0l;
+				hashes[i] = hash & -validBit;
+				word |= validBit << i;
+			}
+			long rowsMask = rowsMask(wordStart, wordEnd);
+			int index = wordStart >>> 6;
+			validity[index] = (validity[index] & ~rowsMask) | word;
+			validRows += Long.bitCount(word);
+		}
+		return validRows;
+	}
+
+	/**
+	 * encodes all rows of the given columns like
+	 * {@link #encode(double[], double[], int, long[], long[])}, but splits
+	 * them across the threads of the common {@link ForkJoinPool}.
+	 * 
+	 * @return the number of valid rows.
+	 */
+	public static int encodeParallel(double[] latitudes, double[] longitudes, int numberOfBits, long[] hashes,
+			long[] validity) {
+		return encodeParallel(latitudes, longitudes, numberOfBits, hashes, validity, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * encodes all rows of the given columns like
+	 * {@link #encode(double[], double[], int, long[], long[])}, but splits
+	 * them across the threads of the given pool. The results do not depend on
+	 * how the rows are split.
+	 * 
+	 * @return the number of valid rows.
+	 */
+	public static int encodeParallel(double[] latitudes, double[] longitudes, int numberOfBits, long[] hashes,
+			long[] validity, ForkJoinPool pool) {
+		checkColumnLengths(latitudes.length, longitudes.length);
+		int length = latitudes.length;
+		checkBitPrecision(numberOfBits);
+		checkRange(0, length, hashes.length);
+		checkRange(0, validityLength(length), validity.length);
+		if (length <= PARALLEL_CHUNK_ROWS) {
+			return encode(latitudes, longitudes, 0, length, numberOfBits, hashes, validity);
+		}
+		return pool.invoke(new EncodeTask(latitudes, longitudes, 0, length, numberOfBits, hashes, validity));
+	}
+
+	/**
+	 * encodes the remaining elements of the given buffers, which must all have
+	 * the same number of remaining elements, and advances their positions.
+	 * The first encoded row is row 0 of the validity bitmap.
+	 * 
+	 * @return the number of valid rows.
+	 */
+	public static int encode(DoubleBuffer latitudes, DoubleBuffer longitudes, int numberOfBits, LongBuffer hashes,
+			long[] validity) {
+		int length = latitudes.remaining();
+		checkColumnLengths(length, longitudes.remaining());
+		checkColumnLengths(length, hashes.remaining());
+		checkBitPrecision(numberOfBits);
+		checkRange(0, validityLength(length), validity.length);
+		int latitudeBits = numberOfBits / 2;
+		int longitudeBits = numberOfBits - latitudeBits;
+		int validRows = 0;
+		for (int i = 0; i < length; i++) {
+			double latitude = latitudes.get();
+			double longitude = longitudes.get();
+			if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+				hashes.put(GeoHash.interleave(GeoHash.quantize(latitude, -90, 180, latitudeBits),
+						GeoHash.quantize(longitude, -180, 360, longitudeBits), numberOfBits));
+				validity[i >>> 6] |= 1l << i;
+				validRows++;
+			} else {
+				hashes.put(0);
+				validity[i >>> 6] &= ~(1l << i);
+			}
+		}
+		return validRows;
+	}
+
+	/**
+	 * decodes all given hash values with the given number of significant bits
+	 * into the centers of their bounding boxes.
+	 */
+	public static void decode(long[] hashes, int significantBits, double[] latitudes, double[] longitudes) {
+		decode(hashes, 0, hashes.length, significantBits, latitudes, longitudes);
+	}
+
+	/**
+	 * decodes the hash values [offset, offset + length) with the given number
+	 * of significant bits into the centers of their bounding boxes. The rows
+	 * keep their index in latitudes and longitudes.
+	 */
+	public static void decode(long[] hashes, int offset, int length, int significantBits, double[] latitudes,
+			double[] longitudes) {
+		checkBitPrecision(significantBits);
+		checkRange(offset, length, hashes.length);
+		checkRange(offset, length, latitudes.length);
+		checkRange(offset, length, longitudes.length);
+
+		int latitudeBits = significantBits / 2;
+		int longitudeBits = significantBits - latitudeBits;
+		double latitudeSize = 180.0 / (1l << latitudeBits);
+		double longitudeSize = 360.0 / (1l << longitudeBits);
+		for (int i = offset; i < offset + length; i++) {
+			double south = -90 + GeoHash.latitudeCell(hashes[i], significantBits) * latitudeSize;
+			double west = -180 + GeoHash.longitudeCell(hashes[i], significantBits) * longitudeSize;
+			latitudes[i] = (south + (south + latitudeSize)) / 2;
+			longitudes[i] = (west + (west + longitudeSize)) / 2;
+		}
+	}
+
+	/**
+	 * encodes a range of rows by halving it until it is at most
+	 * {@link #PARALLEL_CHUNK_ROWS} long. The ranges are only split at
+	 * multiples of 64 rows, so no two tasks write to the same validity word,
+	 * and each task writes a contiguous run of hashes, so at most the cache
+	 * line around a split point is shared.
+	 */
+	private static final class EncodeTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1l;
+
+		private final double[] latitudes;
+		private final double[] longitudes;
+		private final int offset;
+		private final int length;
+		private final int numberOfBits;
+		private final long[] hashes;
+		private final long[] validity;
+
+		EncodeTask(double[] latitudes, double[] longitudes, int offset, int length, int numberOfBits, long[] hashes,
+				long[] validity) {
+			this.latitudes = latitudes;
+			this.longitudes = longitudes;
+			this.offset = offset;
+			this.length = length;
+			this.numberOfBits = numberOfBits;
+			this.hashes = hashes;
+			this.validity = validity;
+		}
+
+		@Override
+		protected Integer compute() {
+			int split = (offset + (length >>> 1)) & ~63;
+			if (length <= PARALLEL_CHUNK_ROWS || split <= offset) {
+				return encode(latitudes, longitudes, offset, length, numberOfBits, hashes, validity);
+			}
+			EncodeTask upper = new EncodeTask(latitudes, longitudes, split, offset + length - split, numberOfBits,
+					hashes, validity);
+			upper.fork();
+			int validRows = new EncodeTask(latitudes, longitudes, offset, split - offset, numberOfBits, hashes,
+					validity).compute();
+			return validRows + upper.join();
+		}
+	}
+
+	/**
+	 * the bits of the rows [wordStart, wordEnd) within their validity word.
+	 */
+	private static long rowsMask(int wordStart, int wordEnd) {
+		long mask = -1l << wordStart;
+		if ((wordEnd & 63) != 0) {
+			mask &= ~(-1l << wordEnd);
+		}
+		return mask;
+	}
+
+	private static void checkBitPrecision(int numberOfBits) {
+		if (numberOfBits < 0 || numberOfBits > GeoHash.MAX_BIT_PRECISION) {
+			throw new IllegalArgumentException("A Geohash can only be between 0 and " + GeoHash.MAX_BIT_PRECISION
+					+ " bits long!");
+		}
+	}
+
+	private static void checkColumnLengths(int expected, int actual) {
+		if (expected != actual) {
+			throw new IllegalArgumentException("All columns must have the same length, got " + expected + " and "
+					+ actual);
+		}
+	}
+
+	private static void checkRange(int offset, int length, int arrayLength) {
+		if (offset < 0 || length < 0 || offset + length > arrayLength) {
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length)
+					+ ") is out of bounds for length " + arrayLength);
+		}
+	}
+}
@@ -8,7 +8,11 @@
  */
 package ch.hsr.geohash;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 /**
  * {@link WGS84Point} encapsulates coordinates on the earths surface.<br>
@@ -16,6 +20,11 @@ import java.io.Serializable;
  */
 public class WGS84Point implements Serializable {
 	private static final long serialVersionUID = 7457963026513014856L;
+	/**
+	 * the number of bytes of the binary form written by
+	 * {@link #writeTo(DataOutput)}.
+	 */
+	public static final int BYTES = 16;
 	private final double longitude;
 	private final double latitude;
 
@@ -39,6 +48,47 @@ public class WGS84Point implements Serializable {
 		return longitude;
 	}
 
+	/**
+	 * writes the binary form of this point: the latitude and the longitude as
+	 * doubles.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeDouble(latitude);
+		out.writeDouble(longitude);
+	}
+
+	/**
+	 * puts the binary form of this point, see {@link #writeTo(DataOutput)},
+	 * into the given buffer.
+	 *
+	 * @return the buffer.
+	 */
+	public ByteBuffer writeTo(ByteBuffer buffer) {
+		return buffer.putDouble(latitude).putDouble(longitude);
+	}
+
+	/**
+	 * reads a point written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the coordinates are out of range.
+	 */
+	public static WGS84Point readFrom(DataInput in) throws IOException {
+		double latitude = in.readDouble();
+		return new WGS84Point(latitude, in.readDouble());
+	}
+
+	/**
+	 * reads a point put into a buffer by {@link #writeTo(ByteBuffer)}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the coordinates are out of range.
+	 */
+	public static WGS84Point readFrom(ByteBuffer buffer) {
+		double latitude = buffer.getDouble();
+		return new WGS84Point(latitude, buffer.getDouble());
+	}
+
 	@Override
 	public String toString() {
 		return String.format("(" + latitude + "," + longitude + ")");
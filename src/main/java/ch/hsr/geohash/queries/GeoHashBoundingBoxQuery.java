@@ -10,6 +10,7 @@ package ch.hsr.geohash.queries;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import ch.hsr.geohash.BoundingBox;
@@ -20,7 +21,9 @@ import ch.hsr.geohash.util.GeoHashSizeTable;
 /**
  * This class returns the hashes covering a certain bounding box. There are
  * either 1,2 or 4 such hashes, depending on the position of the bounding box
- * on the geohash grid.
+ * on the geohash grid.<br>
+ * Alternatively, {@link #GeoHashBoundingBoxQuery(BoundingBox, int, int)}
+ * covers the box more tightly with hashes of mixed precision.
  */
 public class GeoHashBoundingBoxQuery implements GeoHashQuery, Serializable {
 	private static final long serialVersionUID = 9223256928940522683L;
@@ -43,12 +46,7 @@ public class GeoHashBoundingBoxQuery implements GeoHashQuery, Serializable {
 		}
 
 		// Finally create the combined bounding box
-		for (GeoHash hash : searchHashes) {
-			if (boundingBox == null)
-				boundingBox = new BoundingBox(hash.getBoundingBox());
-			else
-				boundingBox.expandToInclude(hash.getBoundingBox());
-		}
+		combineBoundingBoxes();
 
 		// Check the search hashes on a query over the full planet
 		for (GeoHash hash : searchHashes) {
@@ -85,6 +83,92 @@ public class GeoHashBoundingBoxQuery implements GeoHashQuery, Serializable {
 		}
 	}
 
+	/**
+	 * covers the bounding box with at most maxCells hashes of at most maxBits
+	 * bits each, which may have different precisions.<br>
+	 * Starting with the whole world, the hash with the largest area outside of
+	 * the box is replaced by its halves that still intersect the box, as long
+	 * as that does not exceed maxCells. This stops once every hash either lies
+	 * within the box or has maxBits bits. Large hashes thus cover the inside
+	 * of the box and small ones its edges, and more cells mean less area
+	 * outside of the box. The hashes are sorted by their long value.
+	 */
+	public GeoHashBoundingBoxQuery(BoundingBox bbox, int maxCells, int maxBits) {
+		if (maxCells < 1) {
+			throw new IllegalArgumentException("A cover needs at least one cell, got " + maxCells);
+		}
+		if (maxBits < 0 || maxBits > GeoHash.MAX_BIT_PRECISION) {
+			throw new IllegalArgumentException("A Geohash can only be between 0 and " + GeoHash.MAX_BIT_PRECISION
+					+ " bits long!");
+		}
+		double[][] boxes;
+		if (!bbox.intersects180Meridian()) {
+			boxes = new double[][] { { bbox.getSouthLatitude(), bbox.getNorthLatitude(), bbox.getWestLongitude(),
+					bbox.getEastLongitude() } };
+		} else {
+			boxes = new double[][] {
+					{ bbox.getSouthLatitude(), bbox.getNorthLatitude(), bbox.getWestLongitude(), 180 },
+					{ bbox.getSouthLatitude(), bbox.getNorthLatitude(), -180, bbox.getEastLongitude() } };
+		}
+
+		RegionCover cover = new RegionCover(new RegionCover.Region() {
+			@Override
+			public int classify(double[] bounds) {
+				if (!intersectsAny(bounds, boxes)) {
+					return RegionCover.OUTSIDE;
+				}
+				return wastedArea(bounds, boxes) > 0 ? RegionCover.PARTIAL : RegionCover.INSIDE;
+			}
+
+			@Override
+			public double priority(double[] bounds) {
+				return wastedArea(bounds, boxes);
+			}
+		}, Collections.singletonList(GeoHash.fromLongValue(0, 0)), maxCells, maxBits);
+		searchHashes.addAll(cover.getHashes());
+		combineBoundingBoxes();
+	}
+
+	/**
+	 * the area of the hash with the given bounds, in square degrees, that lies
+	 * outside of the boxes. Both are given as {south, north, west, east}.
+	 */
+	private static double wastedArea(double[] bounds, double[][] boxes) {
+		double area = (bounds[1] - bounds[0]) * (bounds[3] - bounds[2]);
+		for (double[] box : boxes) {
+			double latitudeOverlap = Math.min(bounds[1], box[1]) - Math.max(bounds[0], box[0]);
+			double longitudeOverlap = Math.min(bounds[3], box[3]) - Math.max(bounds[2], box[2]);
+			if (latitudeOverlap > 0 && longitudeOverlap > 0) {
+				area -= latitudeOverlap * longitudeOverlap;
+			}
+		}
+		return area;
+	}
+
+	/**
+	 * whether any point of the boxes is encoded into the hash with the given
+	 * bounds. Hashes contain their south and west edges, and their north and
+	 * east edges only on the 90th parallel and the 180th meridian.
+	 */
+	private static boolean intersectsAny(double[] bounds, double[][] boxes) {
+		for (double[] box : boxes) {
+			if (bounds[0] <= box[1] && (bounds[1] > box[0] || bounds[1] == 90) && bounds[2] <= box[3]
+					&& (bounds[3] > box[2] || bounds[3] == 180)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void combineBoundingBoxes() {
+		for (GeoHash hash : searchHashes) {
+			if (boundingBox == null)
+				boundingBox = new BoundingBox(hash.getBoundingBox());
+			else
+				boundingBox.expandToInclude(hash.getBoundingBox());
+		}
+	}
+
 	private void generateSearchHashes(BoundingBox bbox) {
 		int fittingBits = GeoHashSizeTable.numberOfBitsForOverlappingGeoHash(bbox);
 		WGS84Point center = bbox.getCenter();
@@ -133,7 +217,13 @@ public class GeoHashBoundingBoxQuery implements GeoHashQuery, Serializable {
 
 	@Override
 	public boolean contains(WGS84Point point) {
-		return contains(GeoHash.withBitPrecision(point.getLatitude(), point.getLongitude(), 64));
+		long value = GeoHash.encodeToLong(point.getLatitude(), point.getLongitude(), GeoHash.MAX_BIT_PRECISION);
+		for (GeoHash searchHash : searchHashes) {
+			if ((value & GeoHash.maskForSignificantBits(searchHash.significantBits())) == searchHash.longValue()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
@@ -14,33 +14,71 @@ import java.util.List;
 import ch.hsr.geohash.BoundingBox;
 import ch.hsr.geohash.GeoHash;
 import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.util.SphericalGeodesy;
 import ch.hsr.geohash.util.VincentyGeodesy;
 
 /**
- * represents a radius search around a specific point via geohashes.
- * Approximates the circle with a square!
+ * represents a radius search around a specific point via geohashes.<br>
+ * The circle is covered by hashes that are classified as lying inside the
+ * circle or only partially overlapping it. Points in inside hashes are
+ * accepted right away, points in partial hashes are checked against the
+ * radius, first on the sphere and only if that is too close to call with
+ * {@link VincentyGeodesy}.
  */
 public class GeoHashCircleQuery implements GeoHashQuery, Serializable {
 	private static final long serialVersionUID = 1263295371663796291L;
+	/**
+	 * the number of hashes the circle is covered with by default.
+	 */
+	public static final int DEFAULT_MAX_CELLS = 32;
 	private double radius;
 	private GeoHashBoundingBoxQuery query;
 	private WGS84Point center;
+	private RegionCover cover;
 
 	/**
 	 * create a {@link GeoHashCircleQuery} with the given center point and a radius in meters.
 	 */
 	public GeoHashCircleQuery(WGS84Point center, double radius) {
+		this(center, radius, DEFAULT_MAX_CELLS);
+	}
+
+	/**
+	 * create a {@link GeoHashCircleQuery} with the given center point and a
+	 * radius in meters, which is covered by at most maxCells hashes unless the
+	 * enclosing {@link GeoHashBoundingBoxQuery} already needs more.
+	 */
+	public GeoHashCircleQuery(WGS84Point center, double radius, int maxCells) {
 		this.radius = radius;
 		this.center = center;
-		WGS84Point northEastCorner = VincentyGeodesy.moveInDirection(VincentyGeodesy.moveInDirection(center, 0, radius), 90, radius);
-		WGS84Point southWestCorner = VincentyGeodesy.moveInDirection(VincentyGeodesy.moveInDirection(center, 180, radius), 270, radius);
-		BoundingBox bbox = new BoundingBox(southWestCorner, northEastCorner);
+		BoundingBox bbox = SphericalGeodesy.circleBoundingBox(center, radius);
 		query = new GeoHashBoundingBoxQuery(bbox);
+		cover = new RegionCover(new RegionCover.Region() {
+			@Override
+			public int classify(double[] bounds) {
+				return classifyCell(bounds);
+			}
+		}, query.getSearchHashes(), maxCells, GeoHash.MAX_BIT_PRECISION);
+	}
+
+	private int classifyCell(double[] bounds) {
+		double cellRadius = RegionCover.cellRadiusInMeters(bounds);
+		if (Double.isInfinite(cellRadius)) {
+			return RegionCover.PARTIAL;
+		}
+		double centerDistance = SphericalGeodesy.distanceInMeters(center.getLatitude(), center.getLongitude(),
+				(bounds[0] + bounds[1]) / 2, (bounds[2] + bounds[3]) / 2);
+		if (centerDistance + cellRadius <= radius * (1 - SphericalGeodesy.ELLIPSOID_TOLERANCE)) {
+			return RegionCover.INSIDE;
+		} else if (centerDistance - cellRadius > radius * (1 + SphericalGeodesy.ELLIPSOID_TOLERANCE)) {
+			return RegionCover.OUTSIDE;
+		}
+		return RegionCover.PARTIAL;
 	}
 
 	@Override
 	public boolean contains(GeoHash hash) {
-		return query.contains(hash);
+		return cover.contains(hash);
 	}
 
 	@Override
@@ -50,7 +88,7 @@ public class GeoHashCircleQuery implements GeoHashQuery, Serializable {
 
 	@Override
 	public List<GeoHash> getSearchHashes() {
-		return query.getSearchHashes();
+		return cover.getHashes();
 	}
 
 	@Override
@@ -68,6 +106,20 @@ public class GeoHashCircleQuery implements GeoHashQuery, Serializable {
 
 	@Override
 	public boolean contains(WGS84Point point) {
-		return query.contains(point);
+		int classification = cover.classify(point.getLatitude(), point.getLongitude());
+		return classification == RegionCover.INSIDE
+				|| (classification == RegionCover.PARTIAL && isWithinRadius(point));
+	}
+
+	private boolean isWithinRadius(WGS84Point point) {
+		double distance = SphericalGeodesy.distanceInMeters(center, point);
+		if (distance <= radius * (1 - SphericalGeodesy.ELLIPSOID_TOLERANCE)) {
+			return true;
+		} else if (distance > radius * (1 + SphericalGeodesy.ELLIPSOID_TOLERANCE)) {
+			return false;
+		}
+		double exactDistance = VincentyGeodesy.distanceInMeters(center, point);
+		// Vincenty does not converge for nearly antipodal points
+		return Double.isNaN(exactDistance) ? distance <= radius : exactDistance <= radius;
 	}
 }
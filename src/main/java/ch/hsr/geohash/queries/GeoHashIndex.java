@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.util.function.LongConsumer;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * An index of points, given by an id and the long value of their hash, that
+ * are sorted by hash value, compared unsigned like the geohash strings. The
+ * points within a hash are the ones whose hash value starts with its
+ * significant bits, like in {@link GeoHash#within(GeoHash)}.<br>
+ * Positions are longs, so an index may hold more points than an array can.
+ */
+public interface GeoHashIndex {
+
+	/**
+	 * returns the number of points.
+	 */
+	long size();
+
+	/**
+	 * returns the hash value of the i-th point in the order of the index.
+	 */
+	long getHashValue(long i);
+
+	/**
+	 * returns the id of the i-th point in the order of the index.
+	 */
+	long getId(long i);
+
+	/**
+	 * returns the position of the first point at or after from whose hash
+	 * value is at least the given one, or {@link #size()} if there is none.
+	 */
+	long firstAtOrAfter(long hashValue, long from);
+
+	/**
+	 * returns the position of the first point whose hash value is at least
+	 * the given one, or {@link #size()} if there is none.
+	 */
+	default long firstAtOrAfter(long hashValue) {
+		return firstAtOrAfter(hashValue, 0);
+	}
+
+	/**
+	 * returns the position of the first point at or after from whose hash
+	 * value is above the given last one, or {@link #size()} if there is none.
+	 */
+	default long firstAfter(long last, long from) {
+		return last == -1l ? size() : firstAtOrAfter(last + 1, from);
+	}
+
+	/**
+	 * returns the number of points within the given hash.
+	 */
+	default long count(GeoHash hash) {
+		long from = firstAtOrAfter(hash.longValue(), 0);
+		return firstAfter(GeoHashRanges.lastValueOf(hash), from) - from;
+	}
+
+	/**
+	 * returns the number of points within the given ranges.
+	 */
+	default long count(GeoHashRanges ranges) {
+		long count = 0;
+		long position = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			long from = firstAtOrAfter(ranges.getStart(i), position);
+			position = firstAfter(ranges.getLast(i), from);
+			count += position - from;
+		}
+		return count;
+	}
+
+	/**
+	 * passes the ids of the points within the given hash to the consumer, in
+	 * the order of the index.
+	 */
+	default void forEachId(GeoHash hash, LongConsumer consumer) {
+		long from = firstAtOrAfter(hash.longValue(), 0);
+		long to = firstAfter(GeoHashRanges.lastValueOf(hash), from);
+		for (long i = from; i < to; i++) {
+			consumer.accept(getId(i));
+		}
+	}
+
+	/**
+	 * passes the ids of the points within the given ranges to the consumer,
+	 * in the order of the index. The ranges are searched in one pass, each
+	 * search starts where the previous one ended.
+	 */
+	default void forEachId(GeoHashRanges ranges, LongConsumer consumer) {
+		long position = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			long from = firstAtOrAfter(ranges.getStart(i), position);
+			position = firstAfter(ranges.getLast(i), from);
+			for (long j = from; j < position; j++) {
+				consumer.accept(getId(j));
+			}
+		}
+	}
+
+	/**
+	 * passes the ids of the points within the search hashes of the given
+	 * query to the consumer. These are candidates, the query decides which of
+	 * them it contains, see
+	 * {@link GeoHashQuery#contains(ch.hsr.geohash.WGS84Point)}.
+	 */
+	default void forEachId(GeoHashQuery query, LongConsumer consumer) {
+		forEachId(query.getSearchRanges(), consumer);
+	}
+}
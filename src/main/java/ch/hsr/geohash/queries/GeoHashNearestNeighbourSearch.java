@@ -0,0 +1,279 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.util.SphericalGeodesy;
+
+/**
+ * Finds the k entities closest to a point. The entities are looked up cell by
+ * cell from a {@link CellSource}, in rings of cells of a fixed precision
+ * around the cell of the point. The search stops as soon as no entity beyond
+ * the rings seen so far can be closer than the k-th closest one found. It
+ * fails if that takes more than a maximum number of cells, e.g. because the
+ * source has fewer than k entities and the cells are small.<br>
+ * Distances are great circle distances in meters, see
+ * {@link SphericalGeodesy#distanceInMeters(double, double, double, double)}.
+ */
+public class GeoHashNearestNeighbourSearch<T> {
+
+	/**
+	 * provides the entities located in a cell of the geohash grid.
+	 */
+	public interface CellSource<T> {
+		/**
+		 * passes every entity located within the given cell to the sink.
+		 */
+		void entitiesIn(GeoHash cell, EntitySink<T> sink);
+	}
+
+	/**
+	 * receives the entities of a cell together with their position.
+	 */
+	public interface EntitySink<T> {
+		void accept(T entity, double latitude, double longitude);
+	}
+
+	/**
+	 * an entity found by the search, with its distance to the point.
+	 */
+	public static final class Neighbour<T> {
+		private final T entity;
+		private final WGS84Point point;
+		private final double distance;
+
+		Neighbour(T entity, WGS84Point point, double distance) {
+			this.entity = entity;
+			this.point = point;
+			this.distance = distance;
+		}
+
+		public T getEntity() {
+			return entity;
+		}
+
+		public WGS84Point getPoint() {
+			return point;
+		}
+
+		/**
+		 * the distance to the searched point in meters.
+		 */
+		public double getDistance() {
+			return distance;
+		}
+
+		@Override
+		public String toString() {
+			return entity + " at " + point + " (" + distance + "m)";
+		}
+	}
+
+	private static final Comparator<Neighbour<?>> FARTHEST_FIRST = new Comparator<Neighbour<?>>() {
+		@Override
+		public int compare(Neighbour<?> a, Neighbour<?> b) {
+			return Double.compare(b.distance, a.distance);
+		}
+	};
+
+	/**
+	 * the default maximum number of cells a search visits, all cells of the
+	 * world up to 20 bits.
+	 */
+	public static final long DEFAULT_MAX_CELLS = 1l << 20;
+	/* the initial capacity of the heap, which grows up to k + 1 */
+	private static final int INITIAL_HEAP_CAPACITY = 64;
+
+	private final CellSource<T> source;
+	private final int cellBits;
+	private final long maxCells;
+
+	/**
+	 * creates a search over the given source, which is asked for the entities
+	 * of cells with the given number of bits. A search visits at most
+	 * {@link #DEFAULT_MAX_CELLS} cells.
+	 */
+	public GeoHashNearestNeighbourSearch(CellSource<T> source, int cellBits) {
+		this(source, cellBits, DEFAULT_MAX_CELLS);
+	}
+
+	/**
+	 * creates a search over the given source, which is asked for the entities
+	 * of cells with the given number of bits, and visits at most maxCells of
+	 * them.
+	 */
+	public GeoHashNearestNeighbourSearch(CellSource<T> source, int cellBits, long maxCells) {
+		if (cellBits < 0 || cellBits > GeoHash.MAX_BIT_PRECISION) {
+			throw new IllegalArgumentException("A Geohash can only be between 0 and " + GeoHash.MAX_BIT_PRECISION
+					+ " bits long!");
+		}
+		if (maxCells < 1) {
+			throw new IllegalArgumentException("A search has to visit at least one cell, got " + maxCells);
+		}
+		this.source = source;
+		this.cellBits = cellBits;
+		this.maxCells = maxCells;
+	}
+
+	/**
+	 * returns the k entities closest to the given point, closest first. If the
+	 * source has fewer than k entities, this visits all cells of the world, so
+	 * it fails if the world has more cells than the maximum, see
+	 * {@link #search(WGS84Point, int, double)} to limit the distance.
+	 *
+	 * @throws IllegalStateException
+	 *             if the search needs more than the maximum number of cells.
+	 */
+	public List<Neighbour<T>> search(WGS84Point point, int k) {
+		return search(point, k, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * returns the at most k entities closest to the given point that are at
+	 * most maxDistance meters away, closest first.
+	 *
+	 * @throws IllegalStateException
+	 *             if the search needs more than the maximum number of cells.
+	 */
+	public List<Neighbour<T>> search(WGS84Point point, int k, final double maxDistance) {
+		if (k < 1) {
+			throw new IllegalArgumentException("k must be at least 1, got " + k);
+		}
+		final double latitude = point.getLatitude();
+		final double longitude = point.getLongitude();
+		final int capacity = k;
+		final PriorityQueue<Neighbour<T>> heap = new PriorityQueue<>(Math.min(k, INITIAL_HEAP_CAPACITY) + 1,
+				FARTHEST_FIRST);
+		EntitySink<T> sink = new EntitySink<T>() {
+			@Override
+			public void accept(T entity, double entityLatitude, double entityLongitude) {
+				double distance = SphericalGeodesy.distanceInMeters(latitude, longitude, entityLatitude,
+						entityLongitude);
+				if (distance > maxDistance || (heap.size() == capacity && distance >= heap.peek().distance)) {
+					return;
+				}
+				heap.add(new Neighbour<>(entity, new WGS84Point(entityLatitude, entityLongitude), distance));
+				if (heap.size() > capacity) {
+					heap.poll();
+				}
+			}
+		};
+
+		int latitudeBits = cellBits / 2;
+		int longitudeBits = cellBits - latitudeBits;
+		long latitudeCells = 1l << latitudeBits;
+		long longitudeCells = 1l << longitudeBits;
+		double latitudeSize = 180.0 / latitudeCells;
+		double longitudeSize = 360.0 / longitudeCells;
+		long hash = GeoHash.encodeToLong(latitude, longitude, cellBits);
+		long latitudeIndex = GeoHash.latitudeCell(hash, cellBits);
+		long longitudeIndex = GeoHash.longitudeCell(hash, cellBits);
+
+		long visitedCells = 0;
+		for (long ring = 0;; ring++) {
+			visitedCells += visitRing(ring, latitudeIndex, longitudeIndex, latitudeCells, longitudeCells, sink);
+
+			// the distance to the closest point outside of the cells seen so far
+			boolean allLatitudes = latitudeIndex - ring <= 0 && latitudeIndex + ring >= latitudeCells - 1;
+			boolean allLongitudes = 2 * ring + 1 >= longitudeCells;
+			if (allLatitudes && allLongitudes) {
+				break;
+			}
+			double bound = Double.POSITIVE_INFINITY;
+			if (latitudeIndex + ring < latitudeCells - 1) {
+				double north = -90 + (latitudeIndex + ring + 1) * latitudeSize;
+				bound = Math.min(bound, Math.toRadians(north - latitude) * SphericalGeodesy.EARTH_RADIUS);
+			}
+			if (latitudeIndex - ring > 0) {
+				double south = -90 + (latitudeIndex - ring) * latitudeSize;
+				bound = Math.min(bound, Math.toRadians(latitude - south) * SphericalGeodesy.EARTH_RADIUS);
+			}
+			if (!allLongitudes) {
+				double west = -180 + (longitudeIndex - ring) * longitudeSize;
+				double east = -180 + (longitudeIndex + ring + 1) * longitudeSize;
+				bound = Math.min(bound, distanceToMeridian(latitude, longitude - west));
+				bound = Math.min(bound, distanceToMeridian(latitude, east - longitude));
+			}
+			if (bound > maxDistance || (heap.size() == k && bound >= heap.peek().distance)) {
+				break;
+			}
+			if (visitedCells >= maxCells) {
+				throw new IllegalStateException("Visited " + visitedCells + " cells of " + cellBits
+						+ " bits, but more can hold closer entities. Limit the distance or use larger cells.");
+			}
+		}
+
+		List<Neighbour<T>> result = new ArrayList<>(heap);
+		Collections.sort(result, Collections.reverseOrder(FARTHEST_FIRST));
+		return result;
+	}
+
+	/**
+	 * the distance from a point to the closest point of a meridian that is
+	 * longitudeDelta degrees away.
+	 */
+	private static double distanceToMeridian(double latitude, double longitudeDelta) {
+		if (longitudeDelta >= 90) {
+			// the closest point is the nearer pole
+			return Math.toRadians(90 - Math.abs(latitude)) * SphericalGeodesy.EARTH_RADIUS;
+		}
+		double sin = Math.cos(Math.toRadians(latitude)) * Math.sin(Math.toRadians(longitudeDelta));
+		return Math.asin(Math.min(1, sin)) * SphericalGeodesy.EARTH_RADIUS;
+	}
+
+	/**
+	 * visits the cells whose row and column are both at most ring cells away
+	 * from the given cell, and at least one of them exactly ring cells. Rows
+	 * beyond the poles do not exist, columns wrap around the 180 meridian and
+	 * are visited only once. Returns the number of cells visited.
+	 */
+	private long visitRing(long ring, long latitudeIndex, long longitudeIndex, long latitudeCells,
+			long longitudeCells, EntitySink<T> sink) {
+		if (ring == 0) {
+			visitCell(latitudeIndex, longitudeIndex, longitudeCells, sink);
+			return 1;
+		}
+		long visited = 0;
+		long columns = Math.min(2 * ring + 1, longitudeCells);
+		for (long row : new long[] { latitudeIndex - ring, latitudeIndex + ring }) {
+			if (row >= 0 && row < latitudeCells) {
+				for (long column = 0; column < columns; column++) {
+					visitCell(row, longitudeIndex - ring + column, longitudeCells, sink);
+					visited++;
+				}
+			}
+		}
+		if (2 * ring - 1 >= longitudeCells) {
+			return visited;
+		}
+		long firstRow = Math.max(0, latitudeIndex - ring + 1);
+		long lastRow = Math.min(latitudeCells - 1, latitudeIndex + ring - 1);
+		for (long row = firstRow; row <= lastRow; row++) {
+			visitCell(row, longitudeIndex - ring, longitudeCells, sink);
+			visited++;
+			if (2 * ring + 1 <= longitudeCells) {
+				visitCell(row, longitudeIndex + ring, longitudeCells, sink);
+				visited++;
+			}
+		}
+		return visited;
+	}
+
+	private void visitCell(long row, long column, long longitudeCells, EntitySink<T> sink) {
+		long hash = GeoHash.interleave(row, Math.floorMod(column, longitudeCells), cellBits);
+		source.entitiesIn(GeoHash.fromLongValue(hash, cellBits), sink);
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Serializable;
+import java.util.List;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+/**
+ * represents a search for the points within a polygon via geohashes.<br>
+ * The polygon is given by its vertices, the last of which is connected to
+ * the first one, and its edges are straight lines in latitude and longitude.
+ * It must not go over the 180 meridian. Points are inside by the even-odd
+ * rule, so holes can be modelled by connecting them to the outer ring.<br>
+ * The polygon is covered by hashes that are classified as lying inside the
+ * polygon or on its boundary. Points in inside hashes are accepted right
+ * away, only points in boundary hashes are tested against the edges.
+ */
+public class GeoHashPolygonQuery implements GeoHashQuery, Serializable {
+	private static final long serialVersionUID = 1l;
+	/**
+	 * the number of hashes the polygon is covered with by default.
+	 */
+	public static final int DEFAULT_MAX_CELLS = 64;
+	private final double[] latitudes;
+	private final double[] longitudes;
+	private final BoundingBox bbox;
+	private final GeoHashBoundingBoxQuery query;
+	private final RegionCover cover;
+
+	/**
+	 * create a {@link GeoHashPolygonQuery} with the given vertices.
+	 */
+	public GeoHashPolygonQuery(List<WGS84Point> vertices) {
+		this(vertices, DEFAULT_MAX_CELLS);
+	}
+
+	/**
+	 * create a {@link GeoHashPolygonQuery} with the given vertices, which is
+	 * covered by at most maxCells hashes unless the enclosing
+	 * {@link GeoHashBoundingBoxQuery} already needs more.
+	 */
+	public GeoHashPolygonQuery(List<WGS84Point> vertices, int maxCells) {
+		if (vertices.size() < 3) {
+			throw new IllegalArgumentException("A polygon needs at least 3 vertices, got " + vertices.size());
+		}
+		latitudes = new double[vertices.size()];
+		longitudes = new double[vertices.size()];
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = vertices.get(i).getLatitude();
+			longitudes[i] = vertices.get(i).getLongitude();
+		}
+		bbox = new BoundingBox(min(latitudes), max(latitudes), min(longitudes), max(longitudes));
+		query = new GeoHashBoundingBoxQuery(bbox);
+		cover = new RegionCover(new RegionCover.Region() {
+			@Override
+			public int classify(double[] bounds) {
+				return classifyCell(bounds);
+			}
+		}, query.getSearchHashes(), maxCells, GeoHash.MAX_BIT_PRECISION);
+	}
+
+	private int classifyCell(double[] bounds) {
+		if (bounds[0] > bbox.getNorthLatitude() || bounds[1] < bbox.getSouthLatitude()
+				|| bounds[2] > bbox.getEastLongitude() || bounds[3] < bbox.getWestLongitude()) {
+			return RegionCover.OUTSIDE;
+		}
+		for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+			if (edgeIntersects(bounds, latitudes[j], longitudes[j], latitudes[i], longitudes[i])) {
+				return RegionCover.PARTIAL;
+			}
+		}
+		// no edge crosses the cell, so it is either completely inside or
+		// completely outside
+		return isInside((bounds[0] + bounds[1]) / 2, (bounds[2] + bounds[3]) / 2) ? RegionCover.INSIDE
+				: RegionCover.OUTSIDE;
+	}
+
+	/**
+	 * whether the edge touches the cell with the given bounds, by clipping it
+	 * against the four sides of the cell.
+	 */
+	private static boolean edgeIntersects(double[] bounds, double latitude1, double longitude1, double latitude2,
+			double longitude2) {
+		double deltaLatitude = latitude2 - latitude1;
+		double deltaLongitude = longitude2 - longitude1;
+		double[] p = { -deltaLongitude, deltaLongitude, -deltaLatitude, deltaLatitude };
+		double[] q = { longitude1 - bounds[2], bounds[3] - longitude1, latitude1 - bounds[0], bounds[1] - latitude1 };
+		double enter = 0;
+		double exit = 1;
+		for (int i = 0; i < 4; i++) {
+			if (p[i] == 0) {
+				if (q[i] < 0) {
+					return false;
+				}
+			} else {
+				double t = q[i] / p[i];
+				if (p[i] < 0) {
+					enter = Math.max(enter, t);
+				} else {
+					exit = Math.min(exit, t);
+				}
+			}
+		}
+		return enter <= exit;
+	}
+
+	/**
+	 * the even-odd rule: a ray to the east crosses the edges an odd number of
+	 * times.
+	 */
+	private boolean isInside(double latitude, double longitude) {
+		boolean inside = false;
+		for (int i = 0, j = latitudes.length - 1; i < latitudes.length; j = i++) {
+			if ((latitudes[i] > latitude) != (latitudes[j] > latitude)
+					&& longitude < (longitudes[j] - longitudes[i]) * (latitude - latitudes[i])
+							/ (latitudes[j] - latitudes[i]) + longitudes[i]) {
+				inside = !inside;
+			}
+		}
+		return inside;
+	}
+
+	private static double min(double[] values) {
+		double min = values[0];
+		for (double value : values) {
+			min = Math.min(min, value);
+		}
+		return min;
+	}
+
+	private static double max(double[] values) {
+		double max = values[0];
+		for (double value : values) {
+			max = Math.max(max, value);
+		}
+		return max;
+	}
+
+	@Override
+	public boolean contains(GeoHash hash) {
+		return cover.contains(hash);
+	}
+
+	@Override
+	public boolean contains(WGS84Point point) {
+		int classification = cover.classify(point.getLatitude(), point.getLongitude());
+		return classification == RegionCover.INSIDE
+				|| (classification == RegionCover.PARTIAL && isInside(point.getLatitude(), point.getLongitude()));
+	}
+
+	@Override
+	public List<GeoHash> getSearchHashes() {
+		return cover.getHashes();
+	}
+
+	@Override
+	public String getWktBox() {
+		return query.getWktBox();
+	}
+
+	@Override
+	public String toString() {
+		return "Polygon Query [vertices=" + latitudes.length + ", bbox=" + bbox + "]";
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Serializable;
+import java.util.List;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.util.SphericalGeodesy;
+
+/**
+ * represents a search for the points within a given distance of a polyline,
+ * i.e. a corridor along a route, via geohashes.<br>
+ * The segments between the vertices are great circle arcs, and distances are
+ * great circle distances as in {@link SphericalGeodesy}.<br>
+ * The corridor is covered by hashes that are classified as lying inside the
+ * corridor or on its boundary. Points in inside hashes are accepted right
+ * away, only points in boundary hashes are measured against the segments.
+ */
+public class GeoHashPolylineQuery implements GeoHashQuery, Serializable {
+	private static final long serialVersionUID = 1l;
+	/**
+	 * the number of hashes the corridor is covered with by default.
+	 */
+	public static final int DEFAULT_MAX_CELLS = 64;
+	/* the enclosing box is built from this many points per segment */
+	private static final int SAMPLES_PER_SEGMENT = 16;
+	private final double[] latitudes;
+	private final double[] longitudes;
+	private final double buffer;
+	private final GeoHashBoundingBoxQuery query;
+	private final RegionCover cover;
+
+	/**
+	 * create a {@link GeoHashPolylineQuery} for the points that are at most
+	 * bufferInMeters away from the polyline through the given vertices.
+	 */
+	public GeoHashPolylineQuery(List<WGS84Point> vertices, double bufferInMeters) {
+		this(vertices, bufferInMeters, DEFAULT_MAX_CELLS);
+	}
+
+	/**
+	 * create a {@link GeoHashPolylineQuery} for the points that are at most
+	 * bufferInMeters away from the polyline through the given vertices, which
+	 * is covered by at most maxCells hashes unless the enclosing
+	 * {@link GeoHashBoundingBoxQuery} already needs more.
+	 */
+	public GeoHashPolylineQuery(List<WGS84Point> vertices, double bufferInMeters, int maxCells) {
+		if (vertices.isEmpty()) {
+			throw new IllegalArgumentException("A polyline needs at least one vertex");
+		}
+		if (!(bufferInMeters >= 0)) {
+			throw new IllegalArgumentException("The buffer must not be negative, got " + bufferInMeters);
+		}
+		buffer = bufferInMeters;
+		latitudes = new double[vertices.size()];
+		longitudes = new double[vertices.size()];
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = vertices.get(i).getLatitude();
+			longitudes[i] = vertices.get(i).getLongitude();
+		}
+		query = new GeoHashBoundingBoxQuery(enclosingBoundingBox());
+		cover = new RegionCover(new RegionCover.Region() {
+			@Override
+			public int classify(double[] bounds) {
+				return classifyCell(bounds);
+			}
+		}, query.getSearchHashes(), maxCells, GeoHash.MAX_BIT_PRECISION);
+	}
+
+	/**
+	 * every point of a segment is at most half a sample spacing away from one
+	 * of the samples, so the boxes around the samples enclose the corridor.
+	 */
+	private BoundingBox enclosingBoundingBox() {
+		BoundingBox bbox = SphericalGeodesy.circleBoundingBox(new WGS84Point(latitudes[0], longitudes[0]), buffer);
+		for (int i = 1; i < latitudes.length; i++) {
+			double phi1 = Math.toRadians(latitudes[i - 1]);
+			double lambda1 = Math.toRadians(longitudes[i - 1]);
+			double phi2 = Math.toRadians(latitudes[i]);
+			double lambda2 = Math.toRadians(longitudes[i]);
+			double length = SphericalGeodesy.distanceInMeters(latitudes[i - 1], longitudes[i - 1], latitudes[i],
+					longitudes[i]);
+			double angle = length / SphericalGeodesy.EARTH_RADIUS;
+			double radius = buffer + length / SAMPLES_PER_SEGMENT / 2;
+			for (int sample = 0; sample <= SAMPLES_PER_SEGMENT; sample++) {
+				double fraction = (double) sample / SAMPLES_PER_SEGMENT;
+				double a = angle == 0 ? 1 - fraction : Math.sin((1 - fraction) * angle) / Math.sin(angle);
+				double b = angle == 0 ? fraction : Math.sin(fraction * angle) / Math.sin(angle);
+				double x = a * Math.cos(phi1) * Math.cos(lambda1) + b * Math.cos(phi2) * Math.cos(lambda2);
+				double y = a * Math.cos(phi1) * Math.sin(lambda1) + b * Math.cos(phi2) * Math.sin(lambda2);
+				double z = a * Math.sin(phi1) + b * Math.sin(phi2);
+				WGS84Point point = new WGS84Point(Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y))),
+						Math.toDegrees(Math.atan2(y, x)));
+				bbox.expandToInclude(SphericalGeodesy.circleBoundingBox(point, radius));
+			}
+		}
+		return bbox;
+	}
+
+	private int classifyCell(double[] bounds) {
+		double cellRadius = RegionCover.cellRadiusInMeters(bounds);
+		if (Double.isInfinite(cellRadius)) {
+			return RegionCover.PARTIAL;
+		}
+		double distance = distanceInMeters((bounds[0] + bounds[1]) / 2, (bounds[2] + bounds[3]) / 2);
+		if (distance + cellRadius <= buffer) {
+			return RegionCover.INSIDE;
+		} else if (distance - cellRadius > buffer) {
+			return RegionCover.OUTSIDE;
+		}
+		return RegionCover.PARTIAL;
+	}
+
+	/**
+	 * returns the distance in meters between the given point and the closest
+	 * point of the polyline.
+	 */
+	public double distanceInMeters(double latitude, double longitude) {
+		if (latitudes.length == 1) {
+			return SphericalGeodesy.distanceInMeters(latitude, longitude, latitudes[0], longitudes[0]);
+		}
+		double distance = Double.POSITIVE_INFINITY;
+		for (int i = 1; i < latitudes.length; i++) {
+			distance = Math.min(distance, SphericalGeodesy.distanceToSegmentInMeters(latitude, longitude,
+					latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]));
+		}
+		return distance;
+	}
+
+	@Override
+	public boolean contains(GeoHash hash) {
+		return cover.contains(hash);
+	}
+
+	@Override
+	public boolean contains(WGS84Point point) {
+		int classification = cover.classify(point.getLatitude(), point.getLongitude());
+		return classification == RegionCover.INSIDE
+				|| (classification == RegionCover.PARTIAL && distanceInMeters(point.getLatitude(),
+						point.getLongitude()) <= buffer);
+	}
+
+	@Override
+	public List<GeoHash> getSearchHashes() {
+		return cover.getHashes();
+	}
+
+	@Override
+	public String getWktBox() {
+		return query.getWktBox();
+	}
+
+	@Override
+	public String toString() {
+		return "Polyline Query [vertices=" + latitudes.length + ", buffer=" + buffer + "m]";
+	}
+}
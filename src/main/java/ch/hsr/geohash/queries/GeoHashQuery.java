@@ -22,6 +22,22 @@ public interface GeoHashQuery {
 	 */
 	public List<GeoHash> getSearchHashes();
 
+	/**
+	 * returns the long values covered by the search hashes as sorted and
+	 * coalesced ranges.
+	 */
+	public default GeoHashRanges getSearchRanges() {
+		return GeoHashRanges.of(getSearchHashes());
+	}
+
+	/**
+	 * returns at most maxRanges sorted ranges that cover the search hashes,
+	 * see {@link GeoHashRanges#mergeToAtMost(int)}.
+	 */
+	public default GeoHashRanges getSearchRanges(int maxRanges) {
+		return getSearchRanges().mergeToAtMost(maxRanges);
+	}
+
 	public String getWktBox();
 
 }
\ No newline at end of file
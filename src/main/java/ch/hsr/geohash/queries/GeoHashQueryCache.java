@@ -0,0 +1,223 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.util.GeoHashSizeTable;
+
+/**
+ * A thread safe cache of {@link GeoHashBoundingBoxQuery}s, for callers that
+ * query many nearly identical boxes, like the viewports of a map.<br>
+ * A box is snapped to the cells of the grid its cover is built from: the
+ * precision {@link GeoHashSizeTable#numberOfBitsForOverlappingGeoHash(BoundingBox)}
+ * picks for the plain cover, and maxBits for the mixed precision cover. All
+ * boxes that touch the same cells share one key. The cached query was built
+ * for one of these boxes, and it covers every cell the box touches, so it
+ * covers every other box with the same key as well.<br>
+ * The least recently used queries are evicted once the cache holds
+ * maxEntries of them. The returned queries are shared and must not be
+ * modified.
+ */
+public class GeoHashQueryCache {
+	private final int maxEntries;
+	private final Map<CoverKey, GeoHashBoundingBoxQuery> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * creates a cache that holds at most maxEntries queries.
+	 */
+	public GeoHashQueryCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("The cache must hold at least one entry, got " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+		entries = new LinkedHashMap<CoverKey, GeoHashBoundingBoxQuery>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1l;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CoverKey, GeoHashBoundingBoxQuery> eldest) {
+				if (size() > maxEntries) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * returns a query covering the given box like
+	 * {@link GeoHashBoundingBoxQuery#GeoHashBoundingBoxQuery(BoundingBox)}.
+	 */
+	public GeoHashBoundingBoxQuery get(BoundingBox bbox) {
+		BoundingBox[] boxes = split(bbox);
+		long[] key = new long[1 + 5 * boxes.length];
+		key[0] = -1;
+		for (int i = 0; i < boxes.length; i++) {
+			int bits = GeoHashSizeTable.numberOfBitsForOverlappingGeoHash(boxes[i]);
+			key[1 + 5 * i] = bits;
+			snap(boxes[i], bits, key, 2 + 5 * i);
+		}
+		CoverKey coverKey = new CoverKey(key);
+		GeoHashBoundingBoxQuery query = lookup(coverKey);
+		if (query == null) {
+			query = store(coverKey, new GeoHashBoundingBoxQuery(bbox));
+		}
+		return query;
+	}
+
+	/**
+	 * returns a query covering the given box with mixed precisions like
+	 * {@link GeoHashBoundingBoxQuery#GeoHashBoundingBoxQuery(BoundingBox, int, int)}.
+	 */
+	public GeoHashBoundingBoxQuery get(BoundingBox bbox, int maxCells, int maxBits) {
+		if (maxBits < 0 || maxBits > GeoHash.MAX_BIT_PRECISION) {
+			throw new IllegalArgumentException("A Geohash can only be between 0 and " + GeoHash.MAX_BIT_PRECISION
+					+ " bits long!");
+		}
+		BoundingBox[] boxes = split(bbox);
+		long[] key = new long[2 + 4 * boxes.length];
+		key[0] = maxCells;
+		key[1] = maxBits;
+		for (int i = 0; i < boxes.length; i++) {
+			snap(boxes[i], maxBits, key, 2 + 4 * i);
+		}
+		CoverKey coverKey = new CoverKey(key);
+		GeoHashBoundingBoxQuery query = lookup(coverKey);
+		if (query == null) {
+			query = store(coverKey, new GeoHashBoundingBoxQuery(bbox, maxCells, maxBits));
+		}
+		return query;
+	}
+
+	private GeoHashBoundingBoxQuery lookup(CoverKey key) {
+		GeoHashBoundingBoxQuery query;
+		synchronized (entries) {
+			query = entries.get(key);
+		}
+		if (query != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return query;
+	}
+
+	/* the query is built outside of the lock, a concurrent miss on the same key keeps the first one */
+	private GeoHashBoundingBoxQuery store(CoverKey key, GeoHashBoundingBoxQuery query) {
+		synchronized (entries) {
+			GeoHashBoundingBoxQuery existing = entries.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			entries.put(key, query);
+			return query;
+		}
+	}
+
+	private static BoundingBox[] split(BoundingBox bbox) {
+		if (!bbox.intersects180Meridian()) {
+			return new BoundingBox[] { bbox };
+		}
+		return new BoundingBox[] {
+				new BoundingBox(bbox.getSouthLatitude(), bbox.getNorthLatitude(), bbox.getWestLongitude(), 180),
+				new BoundingBox(bbox.getSouthLatitude(), bbox.getNorthLatitude(), -180, bbox.getEastLongitude()) };
+	}
+
+	/**
+	 * stores the rows and columns of the cells with the given number of bits
+	 * that contain the south west and north east corners of the box.
+	 */
+	private static void snap(BoundingBox bbox, int bits, long[] key, int offset) {
+		long southWest = GeoHash.encodeToLong(bbox.getSouthLatitude(), bbox.getWestLongitude(), bits);
+		long northEast = GeoHash.encodeToLong(bbox.getNorthLatitude(), bbox.getEastLongitude(), bits);
+		key[offset] = GeoHash.latitudeCell(southWest, bits);
+		key[offset + 1] = GeoHash.longitudeCell(southWest, bits);
+		key[offset + 2] = GeoHash.latitudeCell(northEast, bits);
+		key[offset + 3] = GeoHash.longitudeCell(northEast, bits);
+	}
+
+	/**
+	 * returns the number of queries in the cache.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * returns the number of calls that were answered from the cache.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * returns the number of calls that had to build a new query.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * returns the number of queries that were evicted to make room for newer
+	 * ones.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * removes all queries, but keeps the statistics.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GeoHashQueryCache [size=" + size() + ", maxEntries=" + maxEntries + ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	private static final class CoverKey {
+		private final long[] values;
+		private final int hashCode;
+
+		CoverKey(long[] values) {
+			this.values = values;
+			this.hashCode = Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CoverKey && Arrays.equals(values, ((CoverKey) obj).values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
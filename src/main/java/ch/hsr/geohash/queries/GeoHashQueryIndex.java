@@ -0,0 +1,199 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+/**
+ * Finds the queries, e.g. geofences, that contain a point among many
+ * queries. The search hashes of all queries are kept in a binary trie over
+ * the bits of the hashes, where each hash is a node that lists the keys of
+ * the queries it belongs to. A point is looked up by walking down the bits of
+ * its hash, which visits at most 64 nodes however many queries there are.
+ * The queries found that way are then asked whether they really contain the
+ * point.<br>
+ * Queries can be added and removed at any time. Lookups run concurrently,
+ * changes lock out lookups while the trie is updated.
+ */
+public class GeoHashQueryIndex<K> {
+	private final Node<K> root = new Node<>();
+	private final Map<K, GeoHashQuery> queries = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private static final class Node<K> {
+		Node<K> zero;
+		Node<K> one;
+		List<K> keys;
+
+		boolean isEmpty() {
+			return zero == null && one == null && (keys == null || keys.isEmpty());
+		}
+	}
+
+	/**
+	 * adds the query under the given key, replacing the query that was added
+	 * under it before, if any.
+	 */
+	public void add(K key, GeoHashQuery query) {
+		lock.writeLock().lock();
+		try {
+			GeoHashQuery previous = queries.put(key, query);
+			if (previous != null) {
+				removeHashes(key, previous);
+			}
+			for (GeoHash hash : query.getSearchHashes()) {
+				Node<K> node = root;
+				long bits = hash.longValue();
+				for (int i = 0; i < hash.significantBits(); i++, bits <<= 1) {
+					if (bits < 0) {
+						if (node.one == null) {
+							node.one = new Node<>();
+						}
+						node = node.one;
+					} else {
+						if (node.zero == null) {
+							node.zero = new Node<>();
+						}
+						node = node.zero;
+					}
+				}
+				if (node.keys == null) {
+					node.keys = new ArrayList<>(2);
+				}
+				if (!node.keys.contains(key)) {
+					node.keys.add(key);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * removes the query with the given key.
+	 *
+	 * @return whether there was such a query.
+	 */
+	public boolean remove(K key) {
+		lock.writeLock().lock();
+		try {
+			GeoHashQuery query = queries.remove(key);
+			if (query == null) {
+				return false;
+			}
+			removeHashes(key, query);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void removeHashes(K key, GeoHashQuery query) {
+		for (GeoHash hash : query.getSearchHashes()) {
+			removeHash(root, key, hash.longValue(), hash.significantBits());
+		}
+	}
+
+	/**
+	 * removes the key from the node of the hash below the given node and
+	 * prunes the nodes that become empty on the way back up.
+	 *
+	 * @return whether the given node is empty now.
+	 */
+	private boolean removeHash(Node<K> node, K key, long bits, int remainingBits) {
+		if (remainingBits == 0) {
+			if (node.keys != null) {
+				node.keys.remove(key);
+			}
+		} else if (bits < 0) {
+			if (node.one != null && removeHash(node.one, key, bits << 1, remainingBits - 1)) {
+				node.one = null;
+			}
+		} else {
+			if (node.zero != null && removeHash(node.zero, key, bits << 1, remainingBits - 1)) {
+				node.zero = null;
+			}
+		}
+		return node.isEmpty();
+	}
+
+	/**
+	 * returns the number of queries in the index.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return queries.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * returns the keys of all queries that contain the given point, see
+	 * {@link GeoHashQuery#contains(WGS84Point)}.
+	 */
+	public Set<K> getMatches(WGS84Point point) {
+		long hashValue = GeoHash.encodeToLong(point.getLatitude(), point.getLongitude(),
+				GeoHash.MAX_BIT_PRECISION);
+		lock.readLock().lock();
+		try {
+			Set<K> matches = new LinkedHashSet<>();
+			collectCandidates(hashValue, matches);
+			for (Iterator<K> it = matches.iterator(); it.hasNext();) {
+				if (!queries.get(it.next()).contains(point)) {
+					it.remove();
+				}
+			}
+			return matches;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * returns the keys of all queries with a search hash that contains the
+	 * given long value, i.e. a hash with 64 significant bits. This is only
+	 * the trie lookup, without asking the queries.
+	 */
+	public Set<K> getCandidates(long hashValue) {
+		lock.readLock().lock();
+		try {
+			Set<K> candidates = new LinkedHashSet<>();
+			collectCandidates(hashValue, candidates);
+			return candidates;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void collectCandidates(long bits, Set<K> candidates) {
+		Node<K> node = root;
+		for (int i = 0; node != null; i++, bits <<= 1) {
+			if (node.keys != null) {
+				candidates.addAll(node.keys);
+			}
+			if (i == GeoHash.MAX_BIT_PRECISION) {
+				break;
+			}
+			node = bits < 0 ? node.one : node.zero;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Serializable;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * An immutable, compiled form of the search hashes of a query, for checking
+ * large numbers of points against the same query. A point matches if it lies
+ * within one of the search hashes, which is what
+ * {@link GeoHashBoundingBoxQuery#contains(ch.hsr.geohash.WGS84Point)} checks.
+ * For the circle, polygon and polyline queries, which also test the exact
+ * region, matching is a cheap prefilter.<br>
+ * The hashes are kept as sorted ranges of long values, see
+ * {@link GeoHashRanges}, that are searched with a binary search whose loop
+ * has a fixed number of iterations and no data dependent branches. No
+ * objects are allocated per check.
+ */
+public final class GeoHashQueryMatcher implements Serializable {
+	private static final long serialVersionUID = 1l;
+
+	/* the range bounds with the sign bit flipped, so signed comparisons order them unsigned */
+	private final long[] starts;
+	private final long[] lasts;
+
+	private GeoHashQueryMatcher(GeoHashRanges ranges) {
+		starts = new long[ranges.size()];
+		lasts = new long[ranges.size()];
+		for (int i = 0; i < ranges.size(); i++) {
+			starts[i] = ranges.getStart(i) ^ Long.MIN_VALUE;
+			lasts[i] = ranges.getLast(i) ^ Long.MIN_VALUE;
+		}
+	}
+
+	/**
+	 * compiles the search hashes of the given query.
+	 */
+	public static GeoHashQueryMatcher compile(GeoHashQuery query) {
+		return new GeoHashQueryMatcher(query.getSearchRanges());
+	}
+
+	/**
+	 * compiles the given ranges.
+	 */
+	public static GeoHashQueryMatcher of(GeoHashRanges ranges) {
+		return new GeoHashQueryMatcher(ranges);
+	}
+
+	/**
+	 * returns whether the point with the given coordinates lies within one of
+	 * the search hashes.
+	 */
+	public boolean matches(double latitude, double longitude) {
+		return matches(GeoHash.encodeToLong(latitude, longitude, GeoHash.MAX_BIT_PRECISION));
+	}
+
+	/**
+	 * returns whether the given long value, i.e. a hash with 64 significant
+	 * bits, lies within one of the search hashes.
+	 */
+	public boolean matches(long hashValue) {
+		if (starts.length == 0) {
+			return false;
+		}
+		long key = hashValue ^ Long.MIN_VALUE;
+		int i = lastStartAtOrBefore(key);
+		return starts[i] <= key & key <= lasts[i];
+	}
+
+	/**
+	 * returns whether all of the given hash lies within the search hashes.
+	 * Unlike {@link GeoHashQuery#contains(GeoHash)}, this is also true for a
+	 * hash that is only covered by several adjacent search hashes together.
+	 */
+	public boolean matches(GeoHash hash) {
+		long last = GeoHashRanges.lastValueOf(hash);
+		if (starts.length == 0) {
+			return false;
+		}
+		long key = hash.longValue() ^ Long.MIN_VALUE;
+		int i = lastStartAtOrBefore(key);
+		return starts[i] <= key & (last ^ Long.MIN_VALUE) <= lasts[i];
+	}
+
+	/**
+	 * returns the index of the last range that starts at or before the key,
+	 * or 0 if there is none. The loop runs log2(size) times whatever the key,
+	 * and the comparison compiles to a conditional move.
+	 */
+	private int lastStartAtOrBefore(long key) {
+		int base = 0;
+		int size = starts.length;
+		while (size > 1) {
+			int half = size >>> 1;
+			base = starts[base + half] <= key ? base + half : base;
+			size -= half;
+		}
+		return base;
+	}
+
+	/**
+	 * returns the number of ranges the search hashes were compiled into.
+	 */
+	public int size() {
+		return starts.length;
+	}
+}
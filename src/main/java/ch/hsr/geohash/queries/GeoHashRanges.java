@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * The long values covered by a set of hashes, as sorted and disjoint ranges
+ * that can be used for range scans over a store keyed by
+ * {@link GeoHash#longValue()}. A hash covers all long values that start with
+ * its significant bits. Adjacent and overlapping ranges are coalesced.<br>
+ * The values are compared unsigned, i.e. in the same order as the geohash
+ * strings. Each range is [start, last], which is [start, endExclusive)
+ * except for a range that ends at the top of the key space, whose
+ * endExclusive wraps to 0.
+ */
+public final class GeoHashRanges implements Serializable {
+	private static final long serialVersionUID = 1l;
+
+	private final long[] starts;
+	private final long[] lasts;
+
+	private GeoHashRanges(long[] starts, long[] lasts) {
+		this.starts = starts;
+		this.lasts = lasts;
+	}
+
+	/**
+	 * returns the coalesced ranges of long values covered by the given hashes.
+	 */
+	public static GeoHashRanges of(Collection<GeoHash> hashes) {
+		long[][] ranges = new long[hashes.size()][];
+		int i = 0;
+		for (GeoHash hash : hashes) {
+			ranges[i++] = new long[] { hash.longValue(), lastValueOf(hash) };
+		}
+		Arrays.sort(ranges, (a, b) -> Long.compareUnsigned(a[0], b[0]));
+
+		long[] starts = new long[ranges.length];
+		long[] lasts = new long[ranges.length];
+		int size = 0;
+		for (long[] range : ranges) {
+			if (size > 0 && (lasts[size - 1] == -1l || Long.compareUnsigned(range[0], lasts[size - 1] + 1) <= 0)) {
+				if (Long.compareUnsigned(range[1], lasts[size - 1]) > 0) {
+					lasts[size - 1] = range[1];
+				}
+			} else {
+				starts[size] = range[0];
+				lasts[size] = range[1];
+				size++;
+			}
+		}
+		return new GeoHashRanges(Arrays.copyOf(starts, size), Arrays.copyOf(lasts, size));
+	}
+
+	/**
+	 * returns the last long value covered by the given hash.
+	 */
+	static long lastValueOf(GeoHash hash) {
+		return GeoHash.lastLongValue(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * returns at most maxRanges ranges that cover these ranges, by merging the
+	 * ranges with the smallest gaps between them. The result thus covers as
+	 * few additional values as possible.
+	 */
+	public GeoHashRanges mergeToAtMost(int maxRanges) {
+		if (maxRanges < 1) {
+			throw new IllegalArgumentException("At least one range is needed, got " + maxRanges);
+		}
+		if (size() <= maxRanges) {
+			return this;
+		}
+		// gaps[i] is the gap between range i and range i + 1
+		Integer[] gaps = new Integer[size() - 1];
+		for (int i = 0; i < gaps.length; i++) {
+			gaps[i] = i;
+		}
+		Arrays.sort(gaps, (a, b) -> {
+			int result = Long.compareUnsigned(gap(a), gap(b));
+			return result != 0 ? result : Integer.compare(a, b);
+		});
+		boolean[] merged = new boolean[gaps.length];
+		for (int i = 0; i < size() - maxRanges; i++) {
+			merged[gaps[i]] = true;
+		}
+
+		long[] newStarts = new long[maxRanges];
+		long[] newLasts = new long[maxRanges];
+		int size = 0;
+		for (int i = 0; i < size(); i++) {
+			if (i > 0 && merged[i - 1]) {
+				newLasts[size - 1] = lasts[i];
+			} else {
+				newStarts[size] = starts[i];
+				newLasts[size] = lasts[i];
+				size++;
+			}
+		}
+		return new GeoHashRanges(newStarts, newLasts);
+	}
+
+	private long gap(int i) {
+		return starts[i + 1] - lasts[i] - 1;
+	}
+
+	/**
+	 * returns the number of ranges.
+	 */
+	public int size() {
+		return starts.length;
+	}
+
+	/**
+	 * returns the first value of the i-th range.
+	 */
+	public long getStart(int i) {
+		return starts[i];
+	}
+
+	/**
+	 * returns the last value of the i-th range.
+	 */
+	public long getLast(int i) {
+		return lasts[i];
+	}
+
+	/**
+	 * returns the first value after the i-th range, which is 0 if the range
+	 * ends at the top of the key space.
+	 */
+	public long getEndExclusive(int i) {
+		return lasts[i] + 1;
+	}
+
+	/**
+	 * returns whether the given long value lies within one of the ranges.
+	 */
+	public boolean contains(long value) {
+		int low = 0;
+		int high = starts.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(starts[mid], value) > 0) {
+				high = mid - 1;
+			} else if (Long.compareUnsigned(lasts[mid], value) < 0) {
+				low = mid + 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj instanceof GeoHashRanges) {
+			GeoHashRanges other = (GeoHashRanges) obj;
+			return Arrays.equals(starts, other.starts) && Arrays.equals(lasts, other.lasts);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(starts) + Arrays.hashCode(lasts);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder bui = new StringBuilder();
+		for (int i = 0; i < size(); i++) {
+			bui.append('[').append(Long.toHexString(starts[i])).append(", ").append(Long.toHexString(lasts[i]))
+					.append("]\n");
+		}
+		return bui.toString();
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link GeoHashIndex} in a file that is mapped into memory, for indexes
+ * that do not fit on the heap. Opening an index reads its header and checks
+ * its directory, which takes 2^d + 1 reads, see below. The points are read
+ * from the mapped file as they are searched, without copying them, and the
+ * pages are shared by all processes that map the same file.<br>
+ * <br>
+ * The file format, all numbers big endian:
+ * <ul>
+ * <li>a header of 32 bytes: the magic number 0x47484958 ("GHIX") as an int,
+ * the format version 1 as an int, the number of points n as a long, the
+ * number of directory bits d as an int and 12 bytes that are 0.</li>
+ * <li>the directory of 2^d + 1 longs: entry p is the position of the first
+ * point whose hash value starts with d bits that are at least p, the last
+ * entry is n.</li>
+ * <li>n records of 16 bytes: the hash value and the id of a point, as longs,
+ * sorted by hash value compared unsigned.</li>
+ * </ul>
+ * A search looks up the first d bits of the hash value in the directory and
+ * only searches the points between that entry and the next one. Files are
+ * written by a {@link Writer}.<br>
+ * The file is mapped in segments of 1 GiB, as a single mapping is limited to
+ * 2 GiB. Searching is thread safe.
+ */
+public class MappedGeoHashIndex implements GeoHashIndex, Closeable {
+	public static final int MAGIC = 0x47484958;
+	public static final int VERSION = 1;
+	public static final int DEFAULT_DIRECTORY_BITS = 16;
+	public static final int MAX_DIRECTORY_BITS = 24;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 16;
+	private static final int SEGMENT_SHIFT = 30;
+
+	private final FileChannel channel;
+	private final long size;
+	private final int directoryBits;
+	private final ByteBuffer directory;
+	private final ByteBuffer[] segments;
+	private final int segmentShift;
+	private final int segmentMask;
+
+	private MappedGeoHashIndex(FileChannel channel, int segmentShift) throws IOException {
+		this.channel = channel;
+		this.segmentShift = segmentShift;
+		segmentMask = (1 << segmentShift) - 1;
+		if (channel.size() < HEADER_SIZE) {
+			throw new IOException("Not a geohash index file");
+		}
+		ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not a geohash index file");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported geohash index file version " + version);
+		}
+		size = header.getLong();
+		directoryBits = header.getInt();
+		if (size < 0 || directoryBits < 0 || directoryBits > MAX_DIRECTORY_BITS) {
+			throw new IOException("Corrupt geohash index file header");
+		}
+		long directorySize = ((1l << directoryBits) + 1) * Long.BYTES;
+		long recordsOffset = HEADER_SIZE + directorySize;
+		if (channel.size() != recordsOffset + size * RECORD_SIZE) {
+			throw new IOException("The geohash index file should be " + (recordsOffset + size * RECORD_SIZE)
+					+ " bytes long, but is " + channel.size());
+		}
+		directory = channel.map(MapMode.READ_ONLY, HEADER_SIZE, directorySize);
+		long previous = 0;
+		for (int i = 0; i <= 1 << directoryBits; i++) {
+			long entry = directory.getLong(i * Long.BYTES);
+			if (entry < previous || entry > size) {
+				throw new IOException("Corrupt geohash index file directory at entry " + i);
+			}
+			previous = entry;
+		}
+		if (previous != size) {
+			throw new IOException("Corrupt geohash index file directory, the last entry is " + previous);
+		}
+		long recordsSize = size * RECORD_SIZE;
+		segments = new ByteBuffer[(int) ((recordsSize + segmentMask) >>> segmentShift)];
+		for (int i = 0; i < segments.length; i++) {
+			long offset = (long) i << segmentShift;
+			segments[i] = channel.map(MapMode.READ_ONLY, recordsOffset + offset,
+					Math.min(1l << segmentShift, recordsSize - offset));
+		}
+	}
+
+	/**
+	 * opens the index in the given file.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be read or is not an index file.
+	 */
+	public static MappedGeoHashIndex open(Path path) throws IOException {
+		return open(path, SEGMENT_SHIFT);
+	}
+
+	/* smaller segments let the tests cross segment boundaries */
+	static MappedGeoHashIndex open(Path path, int segmentShift) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new MappedGeoHashIndex(channel, segmentShift);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * writes the points of the given index to the given file.
+	 */
+	public static void write(Path path, GeoHashIndex index, int directoryBits) throws IOException {
+		try (Writer writer = new Writer(path, directoryBits)) {
+			for (long i = 0; i < index.size(); i++) {
+				writer.add(index.getHashValue(i), index.getId(i));
+			}
+			writer.finish();
+		}
+	}
+
+	public int getDirectoryBits() {
+		return directoryBits;
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public long getHashValue(long i) {
+		long offset = i * RECORD_SIZE;
+		return segments[(int) (offset >>> segmentShift)].getLong((int) (offset & segmentMask));
+	}
+
+	@Override
+	public long getId(long i) {
+		long offset = i * RECORD_SIZE + Long.BYTES;
+		return segments[(int) (offset >>> segmentShift)].getLong((int) (offset & segmentMask));
+	}
+
+	@Override
+	public long firstAtOrAfter(long hashValue, long from) {
+		int prefix = directoryBits == 0 ? 0 : (int) (hashValue >>> (Long.SIZE - directoryBits));
+		// all points after the bucket of the prefix have greater hash values
+		long high = directory.getLong((prefix + 1) * Long.BYTES);
+		if (from >= high) {
+			return from;
+		}
+		long low = Math.max(from, directory.getLong(prefix * Long.BYTES));
+		long key = hashValue ^ Long.MIN_VALUE;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			if ((getHashValue(middle) ^ Long.MIN_VALUE) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * closes the file. The mapping itself stays valid until it is garbage
+	 * collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * writes an index file, see {@link MappedGeoHashIndex} for the format. The
+	 * points must be added in the order of their hash values, compared
+	 * unsigned. The header and directory are only written by {@link #finish()},
+	 * so a file that is closed without it, e.g. because adding the points
+	 * failed, has no magic number and cannot be opened.
+	 */
+	public static class Writer implements Closeable {
+		private static final int BUFFER_SIZE = 1 << 16;
+		private final FileChannel channel;
+		private final int directoryBits;
+		private final long[] directory;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private int nextPrefix;
+		private long size;
+		private long lastHashValue;
+		private long position;
+		private boolean failed;
+		private boolean finished;
+
+		public Writer(Path path) throws IOException {
+			this(path, DEFAULT_DIRECTORY_BITS);
+		}
+
+		public Writer(Path path, int directoryBits) throws IOException {
+			if (directoryBits < 0 || directoryBits > MAX_DIRECTORY_BITS) {
+				throw new IllegalArgumentException("The directory can have between 0 and " + MAX_DIRECTORY_BITS
+						+ " bits, got " + directoryBits);
+			}
+			this.directoryBits = directoryBits;
+			directory = new long[(1 << directoryBits) + 1];
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE);
+			position = HEADER_SIZE + (long) directory.length * Long.BYTES;
+		}
+
+		public void add(long hashValue, long id) throws IOException {
+			checkWritable();
+			if (size > 0 && Long.compareUnsigned(hashValue, lastHashValue) < 0) {
+				failed = true;
+				throw new IllegalArgumentException("The points must be added in the order of their hash values, "
+						+ Long.toHexString(hashValue) + " comes before " + Long.toHexString(lastHashValue));
+			}
+			int prefix = directoryBits == 0 ? 0 : (int) (hashValue >>> (Long.SIZE - directoryBits));
+			while (nextPrefix <= prefix) {
+				directory[nextPrefix++] = size;
+			}
+			if (buffer.remaining() < RECORD_SIZE) {
+				try {
+					flush();
+				} catch (IOException | RuntimeException e) {
+					failed = true;
+					throw e;
+				}
+			}
+			buffer.putLong(hashValue).putLong(id);
+			lastHashValue = hashValue;
+			size++;
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+
+		private void checkWritable() {
+			if (failed) {
+				throw new IllegalStateException("A previous point could not be added");
+			}
+			if (finished || !channel.isOpen()) {
+				throw new IllegalStateException("The index file is already finished or closed");
+			}
+		}
+
+		/**
+		 * writes the header and directory and closes the file, which is then a
+		 * complete index.
+		 */
+		public void finish() throws IOException {
+			checkWritable();
+			try {
+				flush();
+				while (nextPrefix < directory.length) {
+					directory[nextPrefix++] = size;
+				}
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + directory.length * Long.BYTES);
+				header.putInt(MAGIC).putInt(VERSION).putLong(size).putInt(directoryBits);
+				header.position(HEADER_SIZE);
+				for (long entry : directory) {
+					header.putLong(entry);
+				}
+				header.flip();
+				long headerPosition = 0;
+				while (header.hasRemaining()) {
+					headerPosition += channel.write(header, headerPosition);
+				}
+				finished = true;
+			} catch (IOException | RuntimeException e) {
+				failed = true;
+				throw e;
+			} finally {
+				channel.close();
+			}
+		}
+
+		/**
+		 * closes the file. Unless {@link #finish()} was called, the file has no
+		 * header and is not an index. Closing twice has no effect.
+		 */
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.util.SphericalGeodesy;
+
+/**
+ * Covers a region with hashes that are each classified as lying inside the
+ * region or only partially overlapping it. Starting from a coarse cover,
+ * the partial hashes are split into their halves, and halves outside of the
+ * region are dropped, as long as the number of hashes stays within maxCells.
+ * The hash with the highest priority of the region is split first, and of
+ * those the largest one. Points in inside hashes belong to the region without
+ * further checks, only points in partial hashes need an exact test.
+ */
+final class RegionCover implements Serializable {
+	private static final long serialVersionUID = 1l;
+	static final int OUTSIDE = 0;
+	static final int PARTIAL = 1;
+	static final int INSIDE = 2;
+	/*
+	 * cells larger than this are not classified by their distance, since the
+	 * distance to their center is not bounded by the distances to their
+	 * corners.
+	 */
+	static final double MAX_DISTANCE_CLASSIFIED_CELL_SIZE = 22.5;
+
+	/**
+	 * a region that can tell how it relates to a cell of the geohash grid.
+	 */
+	interface Region {
+		/**
+		 * returns {@link RegionCover#INSIDE} if the whole cell lies within the
+		 * region, {@link RegionCover#OUTSIDE} if no point of it does, and
+		 * {@link RegionCover#PARTIAL} otherwise or if in doubt. The bounds are
+		 * {south, north, west, east}.
+		 */
+		int classify(double[] bounds);
+
+		/**
+		 * returns how urgently a partial cell with the given bounds should be
+		 * split, higher first. By default all cells are equal, so the largest
+		 * ones are split first.
+		 */
+		default double priority(double[] bounds) {
+			return 0;
+		}
+	}
+
+	static final Comparator<GeoHash> BY_HASH = new Comparator<GeoHash>() {
+		@Override
+		public int compare(GeoHash a, GeoHash b) {
+			int result = Long.compareUnsigned(a.longValue(), b.longValue());
+			return result != 0 ? result : Integer.compare(a.significantBits(), b.significantBits());
+		}
+	};
+
+	/* splits the hashes with the highest priority, then the largest ones first */
+	private static final Comparator<Candidate> SPLIT_ORDER = new Comparator<Candidate>() {
+		@Override
+		public int compare(Candidate a, Candidate b) {
+			int result = Double.compare(b.priority, a.priority);
+			if (result == 0) {
+				result = Integer.compare(a.hash.significantBits(), b.hash.significantBits());
+			}
+			return result != 0 ? result : BY_HASH.compare(a.hash, b.hash);
+		}
+	};
+
+	private final List<GeoHash> insideHashes = new ArrayList<>();
+	private final List<GeoHash> partialHashes = new ArrayList<>();
+	private final List<GeoHash> hashes;
+	private final GeoHashRanges insideRanges;
+	private final GeoHashRanges partialRanges;
+
+	RegionCover(Region region, List<GeoHash> initialHashes, int maxCells, int maxBits) {
+		PriorityQueue<Candidate> candidates = new PriorityQueue<>(16, SPLIT_ORDER);
+		double[] bounds = new double[4];
+		int cells = 0;
+		for (GeoHash hash : initialHashes) {
+			GeoHash.decodeBounds(hash.longValue(), hash.significantBits(), bounds);
+			int classification = region.classify(bounds);
+			if (classification != OUTSIDE) {
+				add(hash, classification, region.priority(bounds), maxBits, candidates);
+				cells++;
+			}
+		}
+
+		GeoHash[] children = new GeoHash[2];
+		int[] classifications = new int[2];
+		double[] priorities = new double[2];
+		while (!candidates.isEmpty()) {
+			GeoHash cell = candidates.poll().hash;
+			int significantBits = cell.significantBits() + 1;
+			int numberOfChildren = 0;
+			for (long bit = 0; bit <= 1; bit++) {
+				long hash = cell.longValue() | (bit << (GeoHash.MAX_BIT_PRECISION - significantBits));
+				GeoHash.decodeBounds(hash, significantBits, bounds);
+				int classification = region.classify(bounds);
+				if (classification != OUTSIDE) {
+					children[numberOfChildren] = GeoHash.fromLongValue(hash, significantBits);
+					priorities[numberOfChildren] = classification == PARTIAL ? region.priority(bounds) : 0;
+					classifications[numberOfChildren++] = classification;
+				}
+			}
+			if (cells - 1 + numberOfChildren > maxCells) {
+				partialHashes.add(cell);
+				continue;
+			}
+			cells += numberOfChildren - 1;
+			for (int i = 0; i < numberOfChildren; i++) {
+				add(children[i], classifications[i], priorities[i], maxBits, candidates);
+			}
+		}
+		Collections.sort(insideHashes, BY_HASH);
+		Collections.sort(partialHashes, BY_HASH);
+		hashes = new ArrayList<>(insideHashes.size() + partialHashes.size());
+		hashes.addAll(insideHashes);
+		hashes.addAll(partialHashes);
+		Collections.sort(hashes, BY_HASH);
+		insideRanges = GeoHashRanges.of(insideHashes);
+		partialRanges = GeoHashRanges.of(partialHashes);
+	}
+
+	private void add(GeoHash hash, int classification, double priority, int maxBits,
+			PriorityQueue<Candidate> candidates) {
+		if (classification == INSIDE) {
+			insideHashes.add(hash);
+		} else if (hash.significantBits() < maxBits) {
+			candidates.add(new Candidate(hash, priority));
+		} else {
+			partialHashes.add(hash);
+		}
+	}
+
+	/**
+	 * a partial hash that may still be split, with its priority.
+	 */
+	private static final class Candidate {
+		final GeoHash hash;
+		final double priority;
+
+		Candidate(GeoHash hash, double priority) {
+			this.hash = hash;
+			this.priority = priority;
+		}
+	}
+
+	/**
+	 * returns the largest great circle distance in meters between the center
+	 * of the cell with the given bounds and its points, or infinity if the
+	 * cell is too large for that to be its largest distance to a corner.
+	 */
+	static double cellRadiusInMeters(double[] bounds) {
+		if (bounds[1] - bounds[0] > MAX_DISTANCE_CLASSIFIED_CELL_SIZE
+				|| bounds[3] - bounds[2] > MAX_DISTANCE_CLASSIFIED_CELL_SIZE) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double latitude = (bounds[0] + bounds[1]) / 2;
+		double longitude = (bounds[2] + bounds[3]) / 2;
+		// the eastern corners mirror the western ones
+		double radius = Math.max(SphericalGeodesy.distanceInMeters(latitude, longitude, bounds[0], bounds[2]),
+				SphericalGeodesy.distanceInMeters(latitude, longitude, bounds[1], bounds[2]));
+		return radius * (1 + 1e-9);
+	}
+
+	/**
+	 * the hashes that lie completely within the region, sorted by their long
+	 * value.
+	 */
+	List<GeoHash> getInsideHashes() {
+		return insideHashes;
+	}
+
+	/**
+	 * the hashes that overlap the region partially, sorted by their long
+	 * value.
+	 */
+	List<GeoHash> getPartialHashes() {
+		return partialHashes;
+	}
+
+	/**
+	 * all hashes of the cover, sorted by their long value.
+	 */
+	List<GeoHash> getHashes() {
+		return hashes;
+	}
+
+	/**
+	 * whether the given hash lies within one of the hashes of the cover.
+	 */
+	boolean contains(GeoHash hash) {
+		for (GeoHash coverHash : hashes) {
+			if (hash.within(coverHash)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * returns {@link #INSIDE} if the point lies within an inside hash,
+	 * {@link #PARTIAL} if it lies within a partial hash and {@link #OUTSIDE}
+	 * otherwise.
+	 */
+	int classify(double latitude, double longitude) {
+		long value = GeoHash.encodeToLong(latitude, longitude, GeoHash.MAX_BIT_PRECISION);
+		if (insideRanges.contains(value)) {
+			return INSIDE;
+		}
+		return partialRanges.contains(value) ? PARTIAL : OUTSIDE;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.queries;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * An immutable, in memory {@link GeoHashIndex}, for finding the points within
+ * a hash or within the search hashes of a {@link GeoHashQuery}.<br>
+ * The points are kept sorted by hash value in two parallel arrays, so the
+ * points within a hash, i.e. the ones whose hash value starts with its
+ * significant bits like in {@link GeoHash#within(GeoHash)}, are the ones
+ * between two binary searches. The ranges of a query are searched together:
+ * each search starts where the previous one ended and gallops ahead, so a
+ * query with many small ranges does not pay a full binary search per range.
+ */
+public class SortedGeoHashIndex implements GeoHashIndex, Serializable {
+	private static final long serialVersionUID = 1l;
+	private static final int RADIX_BITS = 8;
+
+	private final long[] hashValues;
+	private final long[] ids;
+
+	/**
+	 * creates an index of the points with the given hash values and ids. The
+	 * arrays are copied and sorted, points with the same hash value keep the
+	 * order they have in the arrays.
+	 */
+	public SortedGeoHashIndex(long[] hashValues, long[] ids) {
+		if (hashValues.length != ids.length) {
+			throw new IllegalArgumentException("There must be as many ids as hash values, got " + ids.length
+					+ " ids for " + hashValues.length + " hash values");
+		}
+		this.hashValues = hashValues.clone();
+		this.ids = ids.clone();
+		sortByHashValue(this.hashValues, this.ids);
+	}
+
+	/**
+	 * sorts the hash values unsigned, i.e. in the order of the geohash
+	 * strings, and the ids along with them. This is a least significant digit
+	 * radix sort, which skips the digits that all hash values share, like the
+	 * low bits of hashes with fewer than 64 bits or the high bits of points
+	 * that lie close together.
+	 */
+	static void sortByHashValue(long[] hashValues, long[] ids) {
+		int n = hashValues.length;
+		long[] hashBuffer = new long[n];
+		long[] idBuffer = new long[n];
+		int[] counts = new int[1 << RADIX_BITS];
+		for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < n; i++) {
+				counts[(int) (hashValues[i] >>> shift) & ((1 << RADIX_BITS) - 1)]++;
+			}
+			if (n == 0 || counts[(int) (hashValues[0] >>> shift) & ((1 << RADIX_BITS) - 1)] == n) {
+				continue;
+			}
+			int offset = 0;
+			for (int digit = 0; digit < counts.length; digit++) {
+				int count = counts[digit];
+				counts[digit] = offset;
+				offset += count;
+			}
+			for (int i = 0; i < n; i++) {
+				int position = counts[(int) (hashValues[i] >>> shift) & ((1 << RADIX_BITS) - 1)]++;
+				hashBuffer[position] = hashValues[i];
+				idBuffer[position] = ids[i];
+			}
+			System.arraycopy(hashBuffer, 0, hashValues, 0, n);
+			System.arraycopy(idBuffer, 0, ids, 0, n);
+		}
+	}
+
+	@Override
+	public long size() {
+		return hashValues.length;
+	}
+
+	@Override
+	public long getHashValue(long i) {
+		return hashValues[(int) i];
+	}
+
+	@Override
+	public long getId(long i) {
+		return ids[(int) i];
+	}
+
+	/**
+	 * looks at from, from + 1, from + 2, from + 4 and so on, until it has
+	 * passed the hash value, and searches the last step binary.
+	 */
+	@Override
+	public long firstAtOrAfter(long hashValue, long from) {
+		long key = hashValue ^ Long.MIN_VALUE;
+		int n = hashValues.length;
+		int low = (int) from;
+		int high = low;
+		int step = 1;
+		while (high < n && (hashValues[high] ^ Long.MIN_VALUE) < key) {
+			low = high + 1;
+			high = (int) Math.min(n, from + step);
+			step <<= 1;
+		}
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if ((hashValues[middle] ^ Long.MIN_VALUE) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * returns the ids of the points within the given hash.
+	 */
+	public long[] getIds(GeoHash hash) {
+		int from = (int) firstAtOrAfter(hash.longValue(), 0);
+		return Arrays.copyOfRange(ids, from, (int) firstAfter(GeoHashRanges.lastValueOf(hash), from));
+	}
+
+	/**
+	 * returns the ids of the points within the search hashes of the given
+	 * query. These are candidates, the query decides which of them it
+	 * contains, see {@link GeoHashQuery#contains(ch.hsr.geohash.WGS84Point)}.
+	 */
+	public long[] getIds(GeoHashQuery query) {
+		return getIds(query.getSearchRanges());
+	}
+
+	/**
+	 * returns the ids of the points within the given ranges.
+	 */
+	public long[] getIds(GeoHashRanges ranges) {
+		int[] froms = new int[ranges.size()];
+		int[] tos = new int[ranges.size()];
+		int count = 0;
+		int position = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			froms[i] = (int) firstAtOrAfter(ranges.getStart(i), position);
+			tos[i] = position = (int) firstAfter(ranges.getLast(i), froms[i]);
+			count += tos[i] - froms[i];
+		}
+		long[] result = new long[count];
+		count = 0;
+		for (int i = 0; i < ranges.size(); i++) {
+			System.arraycopy(ids, froms[i], result, count, tos[i] - froms[i]);
+			count += tos[i] - froms[i];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.util;
+
+import java.util.Arrays;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * Table driven codec between geohash long values and their base32
+ * representation. Each character maps to a group of 5 bits, so the long
+ * value is built and split without any floating point arithmetic.<br>
+ * The methods working on char[] and byte[] buffers do not create any
+ * objects, byte[] buffers are expected to hold ASCII characters.
+ */
+public final class Base32 {
+	public static final int BITS_PER_CHARACTER = 5;
+
+	private static final char[] ENCODE_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'b', 'c', 'd', 'e',
+			'f', 'g', 'h', 'j', 'k', 'm', 'n', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z' };
+	private static final byte[] ENCODE_BYTES = new byte[ENCODE_CHARS.length];
+	/* maps every ASCII character to its 5 bit group, or to -1 if it is invalid */
+	private static final int[] DECODE = new int[128];
+
+	static {
+		Arrays.fill(DECODE, -1);
+		for (int i = 0; i < ENCODE_CHARS.length; i++) {
+			ENCODE_BYTES[i] = (byte) ENCODE_CHARS[i];
+			DECODE[ENCODE_CHARS[i]] = i;
+		}
+	}
+
+	private Base32() {
+	}
+
+	/**
+	 * decodes the given geohash string into a left aligned long value with 5
+	 * significant bits per character.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             when the string contains an invalid character or is longer
+	 *             than {@link GeoHash#MAX_CHARACTER_PRECISION} characters.
+	 */
+	public static long decode(CharSequence geohash) {
+		int length = geohash.length();
+		checkLength(length);
+		long value = 0;
+		int invalid = 0;
+		for (int i = 0; i < length; i++) {
+			int bits = lookup(geohash.charAt(i));
+			invalid |= bits;
+			value = (value << BITS_PER_CHARACTER) | (bits & 0x1f);
+		}
+		if (invalid < 0) {
+			throw invalidCharacter(geohash);
+		}
+		return leftAlign(value, length);
+	}
+
+	/**
+	 * decodes length characters starting at offset in the given buffer.
+	 * 
+	 * @see #decode(CharSequence)
+	 */
+	public static long decode(char[] buffer, int offset, int length) {
+		checkLength(length);
+		long value = 0;
+		int invalid = 0;
+		for (int i = offset; i < offset + length; i++) {
+			int bits = lookup(buffer[i]);
+			invalid |= bits;
+			value = (value << BITS_PER_CHARACTER) | (bits & 0x1f);
+		}
+		if (invalid < 0) {
+			throw invalidCharacter(new String(buffer, offset, length));
+		}
+		return leftAlign(value, length);
+	}
+
+	/**
+	 * decodes length ASCII characters starting at offset in the given buffer.
+	 * 
+	 * @see #decode(CharSequence)
+	 */
+	public static long decode(byte[] buffer, int offset, int length) {
+		checkLength(length);
+		long value = 0;
+		int invalid = 0;
+		for (int i = offset; i < offset + length; i++) {
+			int bits = lookup(buffer[i] & 0xff);
+			invalid |= bits;
+			value = (value << BITS_PER_CHARACTER) | (bits & 0x1f);
+		}
+		if (invalid < 0) {
+			throw invalidCharacter(asciiString(buffer, offset, length));
+		}
+		return leftAlign(value, length);
+	}
+
+	/**
+	 * decodes count geohashes of numberOfCharacters characters each, which are
+	 * stored back to back in the buffer starting at offset, into the first
+	 * count elements of hashes.
+	 */
+	public static void decodeAll(byte[] buffer, int offset, int numberOfCharacters, long[] hashes, int count) {
+		for (int i = 0; i < count; i++) {
+			hashes[i] = decode(buffer, offset + i * numberOfCharacters, numberOfCharacters);
+		}
+	}
+
+	/**
+	 * returns the first numberOfCharacters characters of the base32
+	 * representation of the given left aligned long value.
+	 */
+	public static String encode(long hashValue, int numberOfCharacters) {
+		char[] buffer = new char[numberOfCharacters];
+		encode(hashValue, numberOfCharacters, buffer, 0);
+		return new String(buffer);
+	}
+
+	/**
+	 * writes the first numberOfCharacters characters of the base32
+	 * representation of the given left aligned long value into the buffer,
+	 * starting at offset.
+	 */
+	public static void encode(long hashValue, int numberOfCharacters, char[] buffer, int offset) {
+		checkLength(numberOfCharacters);
+		for (int i = 0; i < numberOfCharacters; i++) {
+			buffer[offset + i] = ENCODE_CHARS[group(hashValue, i)];
+		}
+	}
+
+	/**
+	 * writes the first numberOfCharacters characters of the base32
+	 * representation of the given left aligned long value into the buffer as
+	 * ASCII, starting at offset.
+	 */
+	public static void encode(long hashValue, int numberOfCharacters, byte[] buffer, int offset) {
+		checkLength(numberOfCharacters);
+		for (int i = 0; i < numberOfCharacters; i++) {
+			buffer[offset + i] = ENCODE_BYTES[group(hashValue, i)];
+		}
+	}
+
+	/**
+	 * encodes the first count hashes with numberOfCharacters characters each
+	 * and writes them back to back into the buffer as ASCII, starting at
+	 * offset.
+	 */
+	public static void encodeAll(long[] hashes, int count, int numberOfCharacters, byte[] buffer, int offset) {
+		for (int i = 0; i < count; i++) {
+			encode(hashes[i], numberOfCharacters, buffer, offset + i * numberOfCharacters);
+		}
+	}
+
+	/**
+	 * returns the 5 bit group of the character, or -1 for characters that are
+	 * not part of the alphabet, without branching on the character.
+	 */
+	private static int lookup(int c) {
+		return DECODE[c & 0x7f] | ((0x7f - c) >> 31);
+	}
+
+	private static int group(long hashValue, int index) {
+		return (int) (hashValue >>> (59 - index * BITS_PER_CHARACTER)) & 0x1f;
+	}
+
+	private static long leftAlign(long value, int length) {
+		if (length == 0) {
+			return 0;
+		}
+		return value << (GeoHash.MAX_BIT_PRECISION - length * BITS_PER_CHARACTER);
+	}
+
+	private static void checkLength(int numberOfCharacters) {
+		if (numberOfCharacters < 0 || numberOfCharacters > GeoHash.MAX_CHARACTER_PRECISION) {
+			throw new IllegalArgumentException("A geohash can only be " + GeoHash.MAX_CHARACTER_PRECISION
+					+ " character long.");
+		}
+	}
+
+	private static IllegalArgumentException invalidCharacter(CharSequence geohash) {
+		for (int i = 0; i < geohash.length(); i++) {
+			char c = geohash.charAt(i);
+			if (lookup(c) < 0) {
+				return new IllegalArgumentException("Invalid character character '" + c + "' in geohash '" + geohash
+						+ "'!");
+			}
+		}
+		return new IllegalArgumentException("Invalid geohash '" + geohash + "'!");
+	}
+
+	private static String asciiString(byte[] buffer, int offset, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) (buffer[offset + i] & 0xff);
+		}
+		return new String(chars);
+	}
+}
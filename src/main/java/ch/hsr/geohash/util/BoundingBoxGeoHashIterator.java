@@ -4,19 +4,18 @@ import ch.hsr.geohash.GeoHash;
 import ch.hsr.geohash.util.TwoGeoHashBoundingBox;
 
 import java.util.Iterator;
-import java.util.NoSuchElementException;
 
 /**
  * Iterate over all of the values within a bounding box at a particular
- * resolution
+ * resolution, see {@link BoundingBoxLongIterator} for the order
  */
 public class BoundingBoxGeoHashIterator implements Iterator<GeoHash> {
 	private TwoGeoHashBoundingBox boundingBox;
-	private GeoHash current;
+	private BoundingBoxLongIterator values;
 
 	public BoundingBoxGeoHashIterator(TwoGeoHashBoundingBox bbox) {
 		boundingBox = bbox;
-		current = bbox.getSouthWestCorner();
+		values = new BoundingBoxLongIterator(bbox);
 	}
 
 	public TwoGeoHashBoundingBox getBoundingBox() {
@@ -25,26 +24,12 @@ public class BoundingBoxGeoHashIterator implements Iterator<GeoHash> {
 
 	@Override
 	public boolean hasNext() {
-		return current != null;
+		return values.hasNext();
 	}
 
 	@Override
 	public GeoHash next() {
-		if (!hasNext()) {
-			throw new NoSuchElementException();
-		}
-
-		GeoHash rv = current;
-		if (rv.equals(boundingBox.getNorthEastCorner())) {
-		    current = null;
-        } else {
-			current = rv.next();
-            while (hasNext() && !boundingBox.getBoundingBox().contains(current.getOriginatingPoint())) {
-                current = current.next();
-            }
-        }
-
-		return rv;
+		return GeoHash.fromLongValue(values.nextLong(), boundingBox.getSouthWestCorner().significantBits());
 	}
 
 	@Override
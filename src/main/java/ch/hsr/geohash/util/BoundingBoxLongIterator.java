@@ -0,0 +1,52 @@
+package ch.hsr.geohash.util;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Iterate over the long values of all of the hashes within a bounding box at
+ * a particular resolution, without creating a {@link ch.hsr.geohash.GeoHash}
+ * per value. The hashes come in z-order, starting at the south west corner.
+ * Runs of hashes outside of the box are jumped over rather than stepped
+ * through. A box that goes over the 180 meridian is walked east of the
+ * meridian first and west of it afterwards.
+ */
+public class BoundingBoxLongIterator implements PrimitiveIterator.OfLong {
+	private final TwoGeoHashBoundingBox boundingBox;
+	private final ZOrderRectangle[] rectangles;
+	private int rectangle;
+	private long current;
+
+	public BoundingBoxLongIterator(TwoGeoHashBoundingBox bbox) {
+		boundingBox = bbox;
+		rectangles = ZOrderRectangle.of(bbox);
+		current = rectangles[0].min();
+	}
+
+	public TwoGeoHashBoundingBox getBoundingBox() {
+		return boundingBox;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return rectangle < rectangles.length;
+	}
+
+	@Override
+	public long nextLong() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		long rv = current;
+		ZOrderRectangle zOrderRectangle = rectangles[rectangle];
+		if (rv == zOrderRectangle.max()) {
+			rectangle++;
+			if (hasNext()) {
+				current = rectangles[rectangle].min();
+			}
+		} else {
+			current = zOrderRectangle.nextAtOrAfter(rv + zOrderRectangle.step());
+		}
+		return rv;
+	}
+}
@@ -0,0 +1,146 @@
+package ch.hsr.geohash.util;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link Spliterator} over the long values of all of the hashes within a
+ * bounding box at a particular resolution, in the order of
+ * {@link BoundingBoxLongIterator}, for parallel streams over large boxes, see
+ * {@link TwoGeoHashBoundingBox#longValues()}.<br>
+ * The box is split where its z-order range splits, so both parts are
+ * rectangles of hashes again and their sizes are known exactly.
+ */
+public class BoundingBoxSpliterator implements Spliterator.OfLong {
+	private static final int CHARACTERISTICS = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+	private final ZOrderRectangle[] rectangles;
+	private int rectangle;
+	private final int fence;
+	private long current;
+	/* the number of hashes left in the current rectangle, including the current one */
+	private long remaining;
+
+	public BoundingBoxSpliterator(TwoGeoHashBoundingBox bbox) {
+		this(ZOrderRectangle.of(bbox));
+	}
+
+	private BoundingBoxSpliterator(ZOrderRectangle[] rectangles) {
+		this(rectangles, 0, rectangles.length, rectangles[0].min(), rectangles[0].size());
+	}
+
+	private BoundingBoxSpliterator(ZOrderRectangle[] rectangles, int rectangle, int fence, long current,
+			long remaining) {
+		this.rectangles = rectangles;
+		this.rectangle = rectangle;
+		this.fence = fence;
+		this.current = current;
+		this.remaining = remaining;
+	}
+
+	@Override
+	public boolean tryAdvance(LongConsumer action) {
+		if (rectangle >= fence) {
+			return false;
+		}
+		long value = current;
+		advance(rectangles[rectangle], value);
+		action.accept(value);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(LongConsumer action) {
+		while (rectangle < fence) {
+			ZOrderRectangle zOrderRectangle = rectangles[rectangle];
+			long max = zOrderRectangle.max();
+			long step = zOrderRectangle.step();
+			long value = current;
+			while (value != max) {
+				action.accept(value);
+				value = zOrderRectangle.nextAtOrAfter(value + step);
+			}
+			action.accept(max);
+			nextRectangle();
+		}
+	}
+
+	private void advance(ZOrderRectangle zOrderRectangle, long value) {
+		if (value == zOrderRectangle.max()) {
+			nextRectangle();
+		} else {
+			current = zOrderRectangle.nextAtOrAfter(value + zOrderRectangle.step());
+			if (remaining != Long.MAX_VALUE) {
+				remaining--;
+			}
+		}
+	}
+
+	private void nextRectangle() {
+		rectangle++;
+		if (rectangle < fence) {
+			current = rectangles[rectangle].min();
+			remaining = rectangles[rectangle].size();
+		}
+	}
+
+	/**
+	 * splits off the rectangles before the last one, or else the first part
+	 * of the last rectangle that has hashes left.
+	 */
+	@Override
+	public Spliterator.OfLong trySplit() {
+		if (rectangle >= fence) {
+			return null;
+		}
+		if (fence - rectangle > 1) {
+			BoundingBoxSpliterator prefix = new BoundingBoxSpliterator(rectangles, rectangle, fence - 1, current,
+					remaining);
+			rectangle = fence - 1;
+			current = rectangles[rectangle].min();
+			remaining = rectangles[rectangle].size();
+			return prefix;
+		}
+		// the hashes already consumed may leave nothing in the first part
+		ZOrderRectangle[] parts = rectangles[rectangle].split();
+		while (parts != null && Long.compareUnsigned(current, parts[1].min()) >= 0) {
+			rectangles[rectangle] = parts[1];
+			parts = parts[1].split();
+		}
+		if (parts == null) {
+			return null;
+		}
+		long upperSize = parts[1].size();
+		BoundingBoxSpliterator prefix = new BoundingBoxSpliterator(new ZOrderRectangle[] { parts[0] }, 0, 1,
+				current, remaining == Long.MAX_VALUE || upperSize == Long.MAX_VALUE ? Long.MAX_VALUE : remaining
+						- upperSize);
+		rectangles[rectangle] = parts[1];
+		current = parts[1].min();
+		remaining = upperSize;
+		return prefix;
+	}
+
+	/**
+	 * the exact number of hashes left, unless there are more than
+	 * {@link Long#MAX_VALUE}.
+	 */
+	@Override
+	public long estimateSize() {
+		if (rectangle >= fence) {
+			return 0;
+		}
+		long size = remaining;
+		for (int i = rectangle + 1; i < fence; i++) {
+			long rectangleSize = rectangles[i].size();
+			if (size == Long.MAX_VALUE || rectangleSize > Long.MAX_VALUE - size) {
+				return Long.MAX_VALUE;
+			}
+			size += rectangleSize;
+		}
+		return size;
+	}
+
+	@Override
+	public int characteristics() {
+		return estimateSize() == Long.MAX_VALUE ? CHARACTERISTICS : CHARACTERISTICS | SIZED | SUBSIZED;
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * An immutable, compressed column of hash values that are sorted unsigned,
+ * i.e. in the order of the geohash strings. Sorted hashes share long
+ * prefixes, so the differences between neighbours are small numbers, which
+ * are stored as variable length integers of 7 bits per byte. The zero bits
+ * that all values end with, like the last 4 bits of 60 bit hashes, are not
+ * stored at all.<br>
+ * The values are grouped into blocks, and the first value and the offset of
+ * each block are kept in a skip table. Looking up a value decodes at most one
+ * block, and iterating decodes the values one by one as they are requested.<br>
+ * <br>
+ * The binary form written by {@link #writeTo(DataOutput)}: the number of
+ * values, the number of values per block and the number of trailing zero
+ * bits as ints, the number of bytes of the blocks as an int, followed by the
+ * blocks. A block is its first value minus the first value of the previous
+ * block, the number of bytes of its differences and the differences, all as
+ * variable length integers with the trailing zero bits removed.
+ */
+public class CompressedGeoHashColumn {
+	public static final int DEFAULT_BLOCK_SIZE = 128;
+	/* binary forms are read in chunks of this size, so a corrupt length fails before it is allocated */
+	private static final int READ_CHUNK_SIZE = 1 << 20;
+
+	private final int size;
+	private final int blockSize;
+	private final int shift;
+	private final byte[] data;
+	/* the skip table */
+	private final long[] blockFirsts;
+	private final int[] blockOffsets;
+
+	private CompressedGeoHashColumn(int size, int blockSize, int shift, byte[] data) {
+		this.size = size;
+		this.blockSize = blockSize;
+		this.shift = shift;
+		this.data = data;
+		if (size > data.length) {
+			throw new IllegalArgumentException(size + " values cannot fit in " + data.length + " bytes");
+		}
+		int blocks = (int) (((long) size + blockSize - 1) / blockSize);
+		blockFirsts = new long[blocks];
+		blockOffsets = new int[blocks];
+		int[] position = { 0 };
+		long first = 0;
+		for (int block = 0; block < blocks; block++) {
+			first += readVarLong(data, position) << shift;
+			long blockLength = readVarLong(data, position);
+			if (blockLength < 0 || blockLength > data.length - position[0]) {
+				throw new IllegalArgumentException("Block " + block + " claims " + blockLength + " bytes, but only "
+						+ (data.length - position[0]) + " are left");
+			}
+			int length = (int) blockLength;
+			blockFirsts[block] = first;
+			blockOffsets[block] = position[0];
+			// every difference ends with a byte whose high bit is clear
+			int differences = (int) Math.min(blockSize, (long) size - (long) block * blockSize) - 1;
+			for (int i = position[0]; i < position[0] + length; i++) {
+				if (data[i] >= 0) {
+					differences--;
+				}
+			}
+			if (differences != 0 || (length > 0 && data[position[0] + length - 1] < 0)) {
+				throw new IllegalArgumentException("Block " + block + " does not hold the expected number of values");
+			}
+			position[0] += length;
+		}
+		if (position[0] != data.length) {
+			throw new IllegalArgumentException("The blocks take " + position[0] + " bytes instead of " + data.length);
+		}
+	}
+
+	/**
+	 * compresses the given hash values with {@link #DEFAULT_BLOCK_SIZE} values
+	 * per block.
+	 */
+	public static CompressedGeoHashColumn encode(long[] sortedHashValues) {
+		return encode(sortedHashValues, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * compresses the given hash values with blockSize values per block.
+	 * Smaller blocks make lookups faster and the column larger.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the hash values are not sorted unsigned.
+	 */
+	public static CompressedGeoHashColumn encode(long[] sortedHashValues, int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("A block needs at least one value, got " + blockSize);
+		}
+		long allBits = 0;
+		for (int i = 0; i < sortedHashValues.length; i++) {
+			if (i > 0 && Long.compareUnsigned(sortedHashValues[i - 1], sortedHashValues[i]) > 0) {
+				throw new IllegalArgumentException("The hash values must be sorted, but "
+						+ Long.toHexString(sortedHashValues[i - 1]) + " comes before "
+						+ Long.toHexString(sortedHashValues[i]));
+			}
+			allBits |= sortedHashValues[i];
+		}
+		int shift = allBits == 0 ? 0 : Long.numberOfTrailingZeros(allBits);
+
+		ByteArrayBuilder out = new ByteArrayBuilder(sortedHashValues.length * 2 + 16);
+		ByteArrayBuilder differences = new ByteArrayBuilder(blockSize * 2);
+		long previousFirst = 0;
+		for (int from = 0; from < sortedHashValues.length; from += blockSize) {
+			int to = (int) Math.min(sortedHashValues.length, (long) from + blockSize);
+			differences.reset();
+			for (int i = from + 1; i < to; i++) {
+				differences.writeVarLong((sortedHashValues[i] - sortedHashValues[i - 1]) >>> shift);
+			}
+			out.writeVarLong((sortedHashValues[from] - previousFirst) >>> shift);
+			out.writeVarLong(differences.length);
+			out.write(differences);
+			previousFirst = sortedHashValues[from];
+		}
+		return new CompressedGeoHashColumn(sortedHashValues.length, blockSize, shift, out.toByteArray());
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * returns the number of bytes the compressed values take, without the
+	 * skip table.
+	 */
+	public int getEncodedSize() {
+		return data.length;
+	}
+
+	/**
+	 * returns the i-th value, by decoding its block up to it.
+	 */
+	public long get(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index " + i + " is not within 0 and " + size);
+		}
+		int block = i / blockSize;
+		long value = blockFirsts[block];
+		int[] position = { blockOffsets[block] };
+		for (int j = block * blockSize; j < i; j++) {
+			value += readVarLong(data, position) << shift;
+		}
+		return value;
+	}
+
+	/**
+	 * returns the position of the first value that is at least the given
+	 * one, compared unsigned, or {@link #size()} if there is none. Finds the
+	 * block in the skip table and decodes only that block.
+	 */
+	public int firstAtOrAfter(long hashValue) {
+		long key = hashValue ^ Long.MIN_VALUE;
+		// the last block that starts before the value, the ones after it start
+		// at or after the value
+		int low = 0;
+		int high = blockFirsts.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if ((blockFirsts[middle] ^ Long.MIN_VALUE) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int block = low - 1;
+		if (block < 0) {
+			return 0;
+		}
+		long value = blockFirsts[block];
+		int i = block * blockSize;
+		int end = (int) Math.min(size, (long) i + blockSize);
+		int[] position = { blockOffsets[block] };
+		while ((value ^ Long.MIN_VALUE) < key) {
+			if (++i == end) {
+				return end;
+			}
+			value += readVarLong(data, position) << shift;
+		}
+		return i;
+	}
+
+	/**
+	 * returns the number of values within the given hash, i.e. the values
+	 * that start with its significant bits.
+	 */
+	public int count(GeoHash hash) {
+		int from = firstAtOrAfter(hash.longValue());
+		long last = GeoHash.lastLongValue(hash.longValue(), hash.significantBits());
+		int to = last == -1l ? size : firstAtOrAfter(last + 1);
+		return to - from;
+	}
+
+	/**
+	 * returns an iterator that decodes the values from the given position on.
+	 */
+	public PrimitiveIterator.OfLong iterator(int from) {
+		if (from < 0 || from > size) {
+			throw new IndexOutOfBoundsException("Index " + from + " is not within 0 and " + size);
+		}
+		return new ValueIterator(from);
+	}
+
+	public PrimitiveIterator.OfLong iterator() {
+		return iterator(0);
+	}
+
+	/**
+	 * returns all values, decompressed.
+	 */
+	public long[] toArray() {
+		long[] values = new long[size];
+		PrimitiveIterator.OfLong iterator = iterator();
+		for (int i = 0; i < size; i++) {
+			values[i] = iterator.nextLong();
+		}
+		return values;
+	}
+
+	/**
+	 * writes the binary form of the column, see {@link CompressedGeoHashColumn}.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(blockSize);
+		out.writeInt(shift);
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	/**
+	 * reads a column written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @throws IOException
+	 *             if the column cannot be read or its binary form is corrupt.
+	 */
+	public static CompressedGeoHashColumn readFrom(DataInput in) throws IOException {
+		int size = in.readInt();
+		int blockSize = in.readInt();
+		int shift = in.readInt();
+		int length = in.readInt();
+		// every value takes at least one byte
+		if (size < 0 || blockSize < 1 || shift < 0 || shift >= Long.SIZE || length < 0 || size > length) {
+			throw new IOException("Corrupt compressed column header");
+		}
+		byte[] data = new byte[Math.min(length, READ_CHUNK_SIZE)];
+		in.readFully(data);
+		while (data.length < length) {
+			int read = data.length;
+			data = Arrays.copyOf(data, (int) Math.min(length, 2l * read));
+			in.readFully(data, read, data.length - read);
+		}
+		try {
+			return new CompressedGeoHashColumn(size, blockSize, shift, data);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt compressed column", e);
+		}
+	}
+
+	private class ValueIterator implements PrimitiveIterator.OfLong {
+		private int i;
+		private long value;
+		private final int[] position = new int[1];
+
+		ValueIterator(int from) {
+			i = from;
+			if (from < size) {
+				int block = from / blockSize;
+				value = blockFirsts[block];
+				position[0] = blockOffsets[block];
+				for (int j = block * blockSize; j < from; j++) {
+					value += readVarLong(data, position) << shift;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return i < size;
+		}
+
+		@Override
+		public long nextLong() {
+			if (i >= size) {
+				throw new NoSuchElementException();
+			}
+			long rv = value;
+			i++;
+			if (i < size) {
+				if (i % blockSize == 0) {
+					value = blockFirsts[i / blockSize];
+					position[0] = blockOffsets[i / blockSize];
+				} else {
+					value += readVarLong(data, position) << shift;
+				}
+			}
+			return rv;
+		}
+	}
+
+	/**
+	 * reads an unsigned variable length integer, 7 bits per byte with the
+	 * lowest bits first, where the high bit of a byte tells whether another
+	 * one follows.
+	 */
+	static long readVarLong(byte[] data, int[] position) {
+		long value = 0;
+		for (int bits = 0;; bits += 7) {
+			byte b = data[position[0]++];
+			value |= (long) (b & 0x7f) << bits;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	private static final class ByteArrayBuilder {
+		byte[] bytes;
+		int length;
+
+		ByteArrayBuilder(int capacity) {
+			bytes = new byte[Math.max(capacity, 16)];
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7fl) != 0) {
+				bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		void write(ByteArrayBuilder other) {
+			ensureCapacity(other.length);
+			System.arraycopy(other.bytes, 0, bytes, length, other.length);
+			length += other.length;
+		}
+
+		void reset() {
+			length = 0;
+		}
+
+		private void ensureCapacity(int additional) {
+			if (length + additional > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, length);
+		}
+	}
+}
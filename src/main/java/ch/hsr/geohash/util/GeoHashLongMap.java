@@ -0,0 +1,136 @@
+package ch.hsr.geohash.util;
+
+import java.util.Arrays;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * A map from geohashes to long values, e.g. counters per cell, that stores
+ * keys and values in primitive arrays, see {@link GeoHashSet}. Absent keys map
+ * to 0.<br>
+ * Not thread safe.
+ */
+public class GeoHashLongMap extends GeoHashTable {
+	private long[] values;
+
+	public interface EntryConsumer {
+		void accept(long hashValue, int significantBits, long value);
+	}
+
+	public GeoHashLongMap() {
+		this(0);
+	}
+
+	/**
+	 * creates a map that holds expectedSize entries without growing.
+	 */
+	public GeoHashLongMap(int expectedSize) {
+		super(expectedSize);
+		values = new long[capacity()];
+	}
+
+	public long get(long hashValue, int significantBits) {
+		int slot = slot(hashValue, significantBits);
+		return slot < 0 ? 0 : values[slot];
+	}
+
+	public long get(GeoHash hash) {
+		return get(hash.longValue(), hash.significantBits());
+	}
+
+	public boolean containsKey(long hashValue, int significantBits) {
+		return slot(hashValue, significantBits) >= 0;
+	}
+
+	public boolean containsKey(GeoHash hash) {
+		return containsKey(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * @return the previous value of the key.
+	 */
+	public long put(long hashValue, int significantBits, long value) {
+		int slot = slot(hashValue, significantBits);
+		if (slot < 0) {
+			slot = insert(slot, hashValue, significantBits);
+		}
+		long previous = values[slot];
+		values[slot] = value;
+		return previous;
+	}
+
+	public long put(GeoHash hash, long value) {
+		return put(hash.longValue(), hash.significantBits(), value);
+	}
+
+	/**
+	 * adds delta to the value of the key.
+	 *
+	 * @return the new value of the key.
+	 */
+	public long addTo(long hashValue, int significantBits, long delta) {
+		int slot = slot(hashValue, significantBits);
+		if (slot < 0) {
+			slot = insert(slot, hashValue, significantBits);
+		}
+		return values[slot] += delta;
+	}
+
+	public long addTo(GeoHash hash, long delta) {
+		return addTo(hash.longValue(), hash.significantBits(), delta);
+	}
+
+	/**
+	 * @return the value the key had.
+	 */
+	public long remove(long hashValue, int significantBits) {
+		int slot = slot(hashValue, significantBits);
+		if (slot < 0) {
+			return 0;
+		}
+		long previous = values[slot];
+		delete(slot);
+		return previous;
+	}
+
+	public long remove(GeoHash hash) {
+		return remove(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * passes all entries to the given consumer, in no particular order.
+	 */
+	public void forEach(EntryConsumer consumer) {
+		for (int slot = 0; slot < capacity(); slot++) {
+			if (isOccupied(slot)) {
+				consumer.accept(hashValueAt(slot), significantBitsAt(slot), values[slot]);
+			}
+		}
+	}
+
+	@Override
+	void resizeValues(int capacity, int[] newSlots) {
+		long[] oldValues = values;
+		values = new long[capacity];
+		for (int i = 0; i < newSlots.length; i++) {
+			if (newSlots[i] >= 0) {
+				values[newSlots[i]] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	void moveValue(int from, int to) {
+		values[to] = values[from];
+	}
+
+	@Override
+	void clearValue(int slot) {
+		values[slot] = 0;
+	}
+
+	@Override
+	void clearValues() {
+		Arrays.fill(values, 0);
+	}
+}
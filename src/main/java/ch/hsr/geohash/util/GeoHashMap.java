@@ -0,0 +1,150 @@
+package ch.hsr.geohash.util;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * A map from geohashes to objects, e.g. the entities per cell, that stores
+ * the keys in primitive arrays, see {@link GeoHashSet}. Absent keys map to
+ * null, and null values are not allowed.<br>
+ * Not thread safe.
+ */
+public class GeoHashMap<V> extends GeoHashTable {
+	private Object[] values;
+
+	public interface EntryConsumer<V> {
+		void accept(long hashValue, int significantBits, V value);
+	}
+
+	public GeoHashMap() {
+		this(0);
+	}
+
+	/**
+	 * creates a map that holds expectedSize entries without growing.
+	 */
+	public GeoHashMap(int expectedSize) {
+		super(expectedSize);
+		values = new Object[capacity()];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long hashValue, int significantBits) {
+		int slot = slot(hashValue, significantBits);
+		return slot < 0 ? null : (V) values[slot];
+	}
+
+	public V get(GeoHash hash) {
+		return get(hash.longValue(), hash.significantBits());
+	}
+
+	public boolean containsKey(long hashValue, int significantBits) {
+		return slot(hashValue, significantBits) >= 0;
+	}
+
+	public boolean containsKey(GeoHash hash) {
+		return containsKey(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * @return the previous value of the key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long hashValue, int significantBits, V value) {
+		if (value == null) {
+			throw new NullPointerException("The value must not be null");
+		}
+		int slot = slot(hashValue, significantBits);
+		if (slot < 0) {
+			slot = insert(slot, hashValue, significantBits);
+		}
+		V previous = (V) values[slot];
+		values[slot] = value;
+		return previous;
+	}
+
+	public V put(GeoHash hash, V value) {
+		return put(hash.longValue(), hash.significantBits(), value);
+	}
+
+	/**
+	 * returns the value of the key, after storing the one of the given
+	 * supplier if there was none, e.g. to collect entities per cell.
+	 */
+	@SuppressWarnings("unchecked")
+	public V computeIfAbsent(long hashValue, int significantBits, Supplier<? extends V> supplier) {
+		int slot = slot(hashValue, significantBits);
+		if (slot >= 0) {
+			return (V) values[slot];
+		}
+		V value = supplier.get();
+		if (value == null) {
+			throw new NullPointerException("The value must not be null");
+		}
+		slot = insert(slot, hashValue, significantBits);
+		values[slot] = value;
+		return value;
+	}
+
+	public V computeIfAbsent(GeoHash hash, Supplier<? extends V> supplier) {
+		return computeIfAbsent(hash.longValue(), hash.significantBits(), supplier);
+	}
+
+	/**
+	 * @return the value the key had, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long hashValue, int significantBits) {
+		int slot = slot(hashValue, significantBits);
+		if (slot < 0) {
+			return null;
+		}
+		V previous = (V) values[slot];
+		delete(slot);
+		return previous;
+	}
+
+	public V remove(GeoHash hash) {
+		return remove(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * passes all entries to the given consumer, in no particular order.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super V> consumer) {
+		for (int slot = 0; slot < capacity(); slot++) {
+			if (isOccupied(slot)) {
+				consumer.accept(hashValueAt(slot), significantBitsAt(slot), (V) values[slot]);
+			}
+		}
+	}
+
+	@Override
+	void resizeValues(int capacity, int[] newSlots) {
+		Object[] oldValues = values;
+		values = new Object[capacity];
+		for (int i = 0; i < newSlots.length; i++) {
+			if (newSlots[i] >= 0) {
+				values[newSlots[i]] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	void moveValue(int from, int to) {
+		values[to] = values[from];
+	}
+
+	@Override
+	void clearValue(int slot) {
+		values[slot] = null;
+	}
+
+	@Override
+	void clearValues() {
+		Arrays.fill(values, null);
+	}
+}
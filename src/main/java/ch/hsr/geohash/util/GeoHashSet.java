@@ -0,0 +1,96 @@
+package ch.hsr.geohash.util;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * A set of geohashes that stores the hash value and the number of significant
+ * bits of each hash in primitive arrays, instead of a {@link GeoHash} object
+ * per entry like a {@link java.util.HashSet} would. Hashes are equal if their
+ * significant bits and their number of significant bits are, as with
+ * {@link GeoHash#equals(Object)}.<br>
+ * Not thread safe.
+ */
+public class GeoHashSet extends GeoHashTable {
+
+	public interface HashConsumer {
+		void accept(long hashValue, int significantBits);
+	}
+
+	public GeoHashSet() {
+		this(0);
+	}
+
+	/**
+	 * creates a set that holds expectedSize hashes without growing.
+	 */
+	public GeoHashSet(int expectedSize) {
+		super(expectedSize);
+	}
+
+	/**
+	 * @return whether the hash was not in the set before.
+	 */
+	public boolean add(long hashValue, int significantBits) {
+		int slot = slot(hashValue, significantBits);
+		if (slot >= 0) {
+			return false;
+		}
+		insert(slot, hashValue, significantBits);
+		return true;
+	}
+
+	public boolean add(GeoHash hash) {
+		return add(hash.longValue(), hash.significantBits());
+	}
+
+	public boolean contains(long hashValue, int significantBits) {
+		return slot(hashValue, significantBits) >= 0;
+	}
+
+	public boolean contains(GeoHash hash) {
+		return contains(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * @return whether the hash was in the set.
+	 */
+	public boolean remove(long hashValue, int significantBits) {
+		int slot = slot(hashValue, significantBits);
+		if (slot < 0) {
+			return false;
+		}
+		delete(slot);
+		return true;
+	}
+
+	public boolean remove(GeoHash hash) {
+		return remove(hash.longValue(), hash.significantBits());
+	}
+
+	/**
+	 * passes all hashes to the given consumer, in no particular order.
+	 */
+	public void forEach(HashConsumer consumer) {
+		for (int slot = 0; slot < capacity(); slot++) {
+			if (isOccupied(slot)) {
+				consumer.accept(hashValueAt(slot), significantBitsAt(slot));
+			}
+		}
+	}
+
+	@Override
+	void resizeValues(int capacity, int[] newSlots) {
+	}
+
+	@Override
+	void moveValue(int from, int to) {
+	}
+
+	@Override
+	void clearValue(int slot) {
+	}
+
+	@Override
+	void clearValues() {
+	}
+}
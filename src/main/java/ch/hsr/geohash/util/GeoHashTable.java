@@ -0,0 +1,191 @@
+package ch.hsr.geohash.util;
+
+import java.util.Arrays;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * The keys of a hash table of geohashes, without an object per entry. A key
+ * is the pair of a hash value and its number of significant bits, kept in two
+ * parallel arrays. Collisions are resolved by linear probing, and removals
+ * shift the following entries back instead of leaving tombstones.<br>
+ * Subclasses keep their values in arrays of the same capacity and move them
+ * along with the keys.
+ */
+abstract class GeoHashTable {
+	private static final int MIN_CAPACITY = 16;
+	/* the table grows once it is filled to 3/4 */
+	private static final int LOAD_FACTOR_SHIFT = 2;
+	/* the largest power of two an array can hold, and the number of keys that fit in it */
+	private static final int MAX_CAPACITY = 1 << 30;
+	static final int MAX_SIZE = MAX_CAPACITY - (MAX_CAPACITY >>> LOAD_FACTOR_SHIFT);
+
+	private long[] hashValues;
+	/* the number of significant bits plus one, 0 marks an empty slot */
+	private byte[] precisions;
+	private int mask;
+	private int size;
+
+	GeoHashTable(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("The expected size must not be negative, got " + expectedSize);
+		}
+		if (expectedSize > MAX_SIZE) {
+			throw new IllegalArgumentException("A table holds at most " + MAX_SIZE + " keys, got " + expectedSize);
+		}
+		int capacity = MIN_CAPACITY;
+		while (capacity - (capacity >>> LOAD_FACTOR_SHIFT) < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		hashValues = new long[capacity];
+		precisions = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * allocates value arrays of the given capacity and moves the value at
+	 * each old slot i to the new slot newSlots[i], where newSlots[i] is -1 for
+	 * empty slots.
+	 */
+	abstract void resizeValues(int capacity, int[] newSlots);
+
+	abstract void moveValue(int from, int to);
+
+	abstract void clearValue(int slot);
+
+	abstract void clearValues();
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * removes all entries, but keeps the capacity.
+	 */
+	public void clear() {
+		Arrays.fill(precisions, (byte) 0);
+		clearValues();
+		size = 0;
+	}
+
+	static long significantBitsOf(long hashValue, int significantBits) {
+		if (significantBits < 0 || significantBits > GeoHash.MAX_BIT_PRECISION) {
+			throw new IllegalArgumentException("A Geohash can only be between 0 and " + GeoHash.MAX_BIT_PRECISION
+					+ " bits long!");
+		}
+		return hashValue & GeoHash.maskForSignificantBits(significantBits);
+	}
+
+	private int home(long hashValue, int precision) {
+		return (int) LongUtil.mix(hashValue + precision * 0x9e3779b97f4a7c15l) & mask;
+	}
+
+	/**
+	 * returns the slot of the given key, or the complement of the empty slot
+	 * where it would be inserted.
+	 */
+	final int slot(long hashValue, int significantBits) {
+		hashValue = significantBitsOf(hashValue, significantBits);
+		byte precision = (byte) (significantBits + 1);
+		for (int slot = home(hashValue, precision);; slot = (slot + 1) & mask) {
+			if (precisions[slot] == 0) {
+				return ~slot;
+			} else if (precisions[slot] == precision && hashValues[slot] == hashValue) {
+				return slot;
+			}
+		}
+	}
+
+	/**
+	 * stores the key in the empty slot returned by {@link #slot(long, int)}.
+	 *
+	 * @return the slot the key ended up in, which differs from the given one
+	 *         if the table had to grow.
+	 * @throws IllegalStateException
+	 *             if the table is full and cannot grow any further.
+	 */
+	final int insert(int emptySlot, long hashValue, int significantBits) {
+		if (size == MAX_SIZE) {
+			// the table would have to grow beyond the largest capacity
+			throw new IllegalStateException("A table holds at most " + MAX_SIZE + " keys");
+		}
+		int slot = ~emptySlot;
+		hashValues[slot] = significantBitsOf(hashValue, significantBits);
+		precisions[slot] = (byte) (significantBits + 1);
+		size++;
+		if (size > mask + 1 - ((mask + 1) >>> LOAD_FACTOR_SHIFT)) {
+			grow();
+			return slot(hashValue, significantBits);
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldHashValues = hashValues;
+		byte[] oldPrecisions = precisions;
+		allocate(oldHashValues.length << 1);
+		int[] newSlots = new int[oldHashValues.length];
+		for (int i = 0; i < oldHashValues.length; i++) {
+			if (oldPrecisions[i] == 0) {
+				newSlots[i] = -1;
+				continue;
+			}
+			int slot = home(oldHashValues[i], oldPrecisions[i]);
+			while (precisions[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			hashValues[slot] = oldHashValues[i];
+			precisions[slot] = oldPrecisions[i];
+			newSlots[i] = slot;
+		}
+		resizeValues(hashValues.length, newSlots);
+	}
+
+	/**
+	 * empties the given slot and shifts back the entries that probed past
+	 * it, so lookups never need to skip removed entries.
+	 */
+	final void delete(int slot) {
+		size--;
+		for (int next = (slot + 1) & mask;; next = (next + 1) & mask) {
+			if (precisions[next] == 0) {
+				break;
+			}
+			int home = home(hashValues[next], precisions[next]);
+			// the entry at next may move to slot if slot lies between its
+			// home and next, cyclically
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				hashValues[slot] = hashValues[next];
+				precisions[slot] = precisions[next];
+				moveValue(next, slot);
+				slot = next;
+			}
+		}
+		precisions[slot] = 0;
+		clearValue(slot);
+	}
+
+	final int capacity() {
+		return hashValues.length;
+	}
+
+	final boolean isOccupied(int slot) {
+		return precisions[slot] != 0;
+	}
+
+	final long hashValueAt(int slot) {
+		return hashValues[slot];
+	}
+
+	final int significantBitsAt(int slot) {
+		return precisions[slot] - 1;
+	}
+}
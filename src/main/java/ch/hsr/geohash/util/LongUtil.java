@@ -12,4 +12,47 @@ public class LongUtil {
 		}
 		return result;
 	}
+
+	/**
+	 * spreads the lower 32 bits of the given value to the even bit positions
+	 * of a long, i.e. bit i ends up at position 2i. The odd positions are
+	 * zero.
+	 */
+	public static final long spreadBits(long value) {
+		value &= 0x00000000ffffffffl;
+		value = (value | (value << 16)) & 0x0000ffff0000ffffl;
+		value = (value | (value << 8)) & 0x00ff00ff00ff00ffl;
+		value = (value | (value << 4)) & 0x0f0f0f0f0f0f0f0fl;
+		value = (value | (value << 2)) & 0x3333333333333333l;
+		value = (value | (value << 1)) & 0x5555555555555555l;
+		return value;
+	}
+
+	/**
+	 * the inverse of {@link #spreadBits(long)}: collects the bits at the even
+	 * positions of the given value into the lower 32 bits of the result. The
+	 * odd positions are ignored.
+	 */
+	public static final long compactBits(long value) {
+		value &= 0x5555555555555555l;
+		value = (value | (value >>> 1)) & 0x3333333333333333l;
+		value = (value | (value >>> 2)) & 0x0f0f0f0f0f0f0f0fl;
+		value = (value | (value >>> 4)) & 0x00ff00ff00ff00ffl;
+		value = (value | (value >>> 8)) & 0x0000ffff0000ffffl;
+		value = (value | (value >>> 16)) & 0x00000000ffffffffl;
+		return value;
+	}
+
+	/**
+	 * the finalizer of MurmurHash3: scrambles the bits of the given value so
+	 * that every input bit affects every output bit, for use as a hash code.
+	 */
+	public static final long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdl;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53l;
+		value ^= value >>> 33;
+		return value;
+	}
 }
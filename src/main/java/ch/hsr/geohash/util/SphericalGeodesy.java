@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.util;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.WGS84Point;
+
+/**
+ * Distances on a sphere with the mean earth radius. They are much cheaper than
+ * {@link VincentyGeodesy} and differ from the distances on the WGS84
+ * ellipsoid by less than {@link #ELLIPSOID_TOLERANCE}, so they can be used to
+ * decide most distance comparisons without the ellipsoid.
+ */
+public class SphericalGeodesy {
+	public static final double EARTH_RADIUS = 6371008.8;
+	/**
+	 * the relative difference between the distances on the sphere and on the
+	 * WGS84 ellipsoid is below this.
+	 */
+	public static final double ELLIPSOID_TOLERANCE = 0.006;
+
+	/**
+	 * returns the great circle distance between the given points, using the
+	 * haversine formula.
+	 */
+	public static double distanceInMeters(WGS84Point foo, WGS84Point bar) {
+		return distanceInMeters(foo.getLatitude(), foo.getLongitude(), bar.getLatitude(), bar.getLongitude());
+	}
+
+	/**
+	 * returns the great circle distance between the given coordinates, using
+	 * the haversine formula.
+	 */
+	public static double distanceInMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double phi1 = Math.toRadians(latitude1);
+		double phi2 = Math.toRadians(latitude2);
+		double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+		double sinHalfDeltaLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+		double h = sinHalfDeltaPhi * sinHalfDeltaPhi + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda
+				* sinHalfDeltaLambda;
+		return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, h)));
+	}
+
+	/**
+	 * returns the great circle distance between the given point and the
+	 * shorter great circle arc from the first to the second end point, which
+	 * must be less than half the earth apart.
+	 */
+	public static double distanceToSegmentInMeters(double latitude, double longitude, double latitude1,
+			double longitude1, double latitude2, double longitude2) {
+		double distance13 = distanceInMeters(latitude1, longitude1, latitude, longitude) / EARTH_RADIUS;
+		double distance12 = distanceInMeters(latitude1, longitude1, latitude2, longitude2) / EARTH_RADIUS;
+		if (distance13 == 0 || distance12 == 0) {
+			return distance13 * EARTH_RADIUS;
+		}
+		double bearingDelta = bearing(latitude1, longitude1, latitude, longitude)
+				- bearing(latitude1, longitude1, latitude2, longitude2);
+		if (Math.cos(bearingDelta) < 0) {
+			// the point lies behind the first end point
+			return distance13 * EARTH_RADIUS;
+		}
+		double crossTrack = Math.asin(Math.sin(distance13) * Math.sin(bearingDelta));
+		double alongTrack = Math.acos(Math.max(-1, Math.min(1, Math.cos(distance13) / Math.cos(crossTrack))));
+		if (alongTrack > distance12) {
+			return distanceInMeters(latitude2, longitude2, latitude, longitude);
+		}
+		return Math.abs(crossTrack) * EARTH_RADIUS;
+	}
+
+	/**
+	 * the initial bearing from the first to the second point in radians.
+	 */
+	private static double bearing(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double phi1 = Math.toRadians(latitude1);
+		double phi2 = Math.toRadians(latitude2);
+		double deltaLambda = Math.toRadians(longitude2 - longitude1);
+		return Math.atan2(Math.sin(deltaLambda) * Math.cos(phi2), Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1)
+				* Math.cos(phi2) * Math.cos(deltaLambda));
+	}
+
+	/**
+	 * returns a bounding box that contains all points within the given
+	 * distance of the center on the WGS84 ellipsoid. The box goes over the 180
+	 * meridian if the circle does, and spans all longitudes if the circle
+	 * contains a pole.
+	 */
+	public static BoundingBox circleBoundingBox(WGS84Point center, double radiusInMeters) {
+		double angle = radiusInMeters * (1 + ELLIPSOID_TOLERANCE) / EARTH_RADIUS;
+		double latitudeDelta = Math.toDegrees(angle);
+		double south = center.getLatitude() - latitudeDelta;
+		double north = center.getLatitude() + latitudeDelta;
+		if (south <= -90 || north >= 90) {
+			return new BoundingBox(Math.max(-90, south), Math.min(90, north), -180, 180);
+		}
+		// the circle misses the poles, so the angle is below 90 minus the
+		// latitude and the sine below its cosine, up to rounding. The longitude
+		// delta is thus less than 90.
+		double cosLatitude = Math.cos(Math.toRadians(center.getLatitude()));
+		double longitudeDelta = Math.toDegrees(Math.asin(Math.min(1, Math.sin(angle) / cosLatitude)));
+		double west = center.getLongitude() - longitudeDelta;
+		double east = center.getLongitude() + longitudeDelta;
+		if (west < -180) {
+			west += 360;
+		}
+		if (east > 180) {
+			east -= 360;
+		}
+		return new BoundingBox(south, north, west, east);
+	}
+}
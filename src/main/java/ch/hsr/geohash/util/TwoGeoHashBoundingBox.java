@@ -1,5 +1,9 @@
 package ch.hsr.geohash.util;
 
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import ch.hsr.geohash.BoundingBox;
 import ch.hsr.geohash.GeoHash;
 
@@ -44,6 +48,38 @@ public class TwoGeoHashBoundingBox {
 		return northEastCorner;
 	}
 
+	/**
+	 * returns the number of hashes between the two corners, or
+	 * {@link Long#MAX_VALUE} if that does not fit in a long.
+	 */
+	public long getNumberOfHashes() {
+		long size = 0;
+		for (ZOrderRectangle rectangle : ZOrderRectangle.of(this)) {
+			if (rectangle.size() > Long.MAX_VALUE - size) {
+				return Long.MAX_VALUE;
+			}
+			size += rectangle.size();
+		}
+		return size;
+	}
+
+	/**
+	 * returns the long values of the hashes between the two corners, in the
+	 * order of {@link BoundingBoxLongIterator}. The stream can be made
+	 * parallel, see {@link BoundingBoxSpliterator}.
+	 */
+	public LongStream longValues() {
+		return StreamSupport.longStream(new BoundingBoxSpliterator(this), false);
+	}
+
+	/**
+	 * returns the hashes between the two corners, like {@link #longValues()}.
+	 */
+	public Stream<GeoHash> hashes() {
+		int significantBits = southWestCorner.significantBits();
+		return longValues().mapToObj(value -> GeoHash.fromLongValue(value, significantBits));
+	}
+
 	public String toBase32() {
 		return southWestCorner.toBase32() + northEastCorner.toBase32();
 	}
@@ -0,0 +1,160 @@
+package ch.hsr.geohash.util;
+
+import ch.hsr.geohash.GeoHash;
+
+/**
+ * A rectangle of hashes with the same number of bits, i.e. a range of rows
+ * and a range of columns of cells, that is walked in z-order.<br>
+ * All values are hash values as returned by {@link GeoHash#longValue()}. The
+ * latitude and longitude parts of a value are taken apart by masking out the
+ * other one's bits, and two such parts compare like the rows or columns they
+ * encode, so no bits need to be moved around.
+ */
+final class ZOrderRectangle {
+	/* the longitude bits, the first bit of a hash is a longitude bit */
+	static final long LONGITUDE_MASK = 0xaaaaaaaaaaaaaaaal;
+	static final long LATITUDE_MASK = 0x5555555555555555l;
+
+	private final int significantBits;
+	private final long significantMask;
+	private final long minLatitude;
+	private final long maxLatitude;
+	private final long minLongitude;
+	private final long maxLongitude;
+
+	private ZOrderRectangle(long min, long max, int significantBits) {
+		this.significantBits = significantBits;
+		significantMask = GeoHash.maskForSignificantBits(significantBits);
+		minLatitude = min & LATITUDE_MASK;
+		maxLatitude = max & LATITUDE_MASK;
+		minLongitude = min & LONGITUDE_MASK;
+		maxLongitude = max & LONGITUDE_MASK;
+	}
+
+	/**
+	 * returns the rectangles between the corners of the given box. A box that
+	 * goes over the 180 meridian is split into the part east of its south west
+	 * corner and the part west of its north east corner, in that order.
+	 */
+	static ZOrderRectangle[] of(TwoGeoHashBoundingBox bbox) {
+		int significantBits = bbox.getSouthWestCorner().significantBits();
+		long southWest = bbox.getSouthWestCorner().longValue();
+		long northEast = bbox.getNorthEastCorner().longValue();
+		if (Long.compareUnsigned(southWest & LONGITUDE_MASK, northEast & LONGITUDE_MASK) <= 0) {
+			return new ZOrderRectangle[] { new ZOrderRectangle(southWest, northEast, significantBits) };
+		}
+		long eastmost = LONGITUDE_MASK & GeoHash.maskForSignificantBits(significantBits);
+		return new ZOrderRectangle[] {
+				new ZOrderRectangle(southWest, (northEast & LATITUDE_MASK) | eastmost, significantBits),
+				new ZOrderRectangle(southWest & LATITUDE_MASK, northEast, significantBits) };
+	}
+
+	int getSignificantBits() {
+		return significantBits;
+	}
+
+	/**
+	 * the value between two neighbouring hashes in z-order.
+	 */
+	long step() {
+		return significantBits == 0 ? 0 : 1l << (GeoHash.MAX_BIT_PRECISION - significantBits);
+	}
+
+	/**
+	 * the first hash of the rectangle in z-order, its south west corner.
+	 */
+	long min() {
+		return minLatitude | minLongitude;
+	}
+
+	/**
+	 * the last hash of the rectangle in z-order, its north east corner.
+	 */
+	long max() {
+		return maxLatitude | maxLongitude;
+	}
+
+	/**
+	 * returns the number of hashes in the rectangle, or
+	 * {@link Long#MAX_VALUE} if that does not fit in a long.
+	 */
+	long size() {
+		long rows = GeoHash.latitudeCell(maxLatitude, significantBits)
+				- GeoHash.latitudeCell(minLatitude, significantBits) + 1;
+		long columns = GeoHash.longitudeCell(maxLongitude, significantBits)
+				- GeoHash.longitudeCell(minLongitude, significantBits) + 1;
+		if (rows > Long.MAX_VALUE / columns) {
+			return Long.MAX_VALUE;
+		}
+		return rows * columns;
+	}
+
+	/**
+	 * splits the rectangle where its z-order range splits, at the most
+	 * significant bit in which min and max differ. All hashes of the first
+	 * part come before the ones of the second part.
+	 *
+	 * @return the two parts, or null for a rectangle of one hash.
+	 */
+	ZOrderRectangle[] split() {
+		long min = min();
+		long max = max();
+		if (min == max) {
+			return null;
+		}
+		int i = GeoHash.MAX_BIT_PRECISION - 1 - Long.numberOfLeadingZeros(min ^ max);
+		long bit = 1l << i;
+		long lower = (i % 2 == 1 ? LONGITUDE_MASK : LATITUDE_MASK) & (bit - 1) & significantMask;
+		return new ZOrderRectangle[] { new ZOrderRectangle(min, (max & ~bit) | lower, significantBits),
+				new ZOrderRectangle((min & ~lower) | bit, max, significantBits) };
+	}
+
+	boolean contains(long value) {
+		long latitude = value & LATITUDE_MASK;
+		long longitude = value & LONGITUDE_MASK;
+		return latitude >= minLatitude && latitude <= maxLatitude
+				&& Long.compareUnsigned(longitude, minLongitude) >= 0
+				&& Long.compareUnsigned(longitude, maxLongitude) <= 0;
+	}
+
+	/**
+	 * returns the first hash of the rectangle at or after the given value in
+	 * z-order, which must not be after {@link #max()}. Values outside of the
+	 * rectangle are skipped in one go, by the BIGMIN computation of Tropf and
+	 * Herzog: the bits of the value, min and max are compared from the most
+	 * significant one down, and wherever the range of the rectangle splits,
+	 * the rectangle is cut to the half the value lies in, remembering the
+	 * start of the upper half as the answer should the value lie beyond the
+	 * lower half.
+	 */
+	long nextAtOrAfter(long value) {
+		if (contains(value)) {
+			return value;
+		}
+		long min = min();
+		long max = max();
+		long bigMin = max;
+		for (int i = GeoHash.MAX_BIT_PRECISION - 1; i >= GeoHash.MAX_BIT_PRECISION - significantBits; i--) {
+			long bit = 1l << i;
+			long lower = (i % 2 == 1 ? LONGITUDE_MASK : LATITUDE_MASK) & (bit - 1) & significantMask;
+			boolean valueBit = (value & bit) != 0;
+			boolean minBit = (min & bit) != 0;
+			boolean maxBit = (max & bit) != 0;
+			if (!valueBit) {
+				if (minBit) {
+					return min;
+				} else if (maxBit) {
+					bigMin = (min & ~lower) | bit;
+					max = (max & ~bit) | lower;
+				}
+			} else {
+				if (!maxBit) {
+					return bigMin;
+				} else if (!minBit) {
+					min = (min & ~lower) | bit;
+				}
+			}
+		}
+		return value;
+	}
+}
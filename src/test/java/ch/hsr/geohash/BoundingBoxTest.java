@@ -12,6 +12,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -169,6 +176,27 @@ public class BoundingBoxTest {
 		assertFalse(boundingBox + " should NOT intersect " + bbox, boundingBox.intersects(bbox));
 	}
 
+	@Test
+	public void testBinaryForm() throws IOException {
+		BoundingBox[] boxes = { new BoundingBox(-10, 20, 170, -170), new BoundingBox(47.3, 47.4, 8.5, 8.6) };
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ByteBuffer buffer = ByteBuffer.allocate(boxes.length * BoundingBox.BYTES);
+		for (BoundingBox box : boxes) {
+			box.writeTo(new DataOutputStream(bytes));
+			box.writeTo(buffer);
+		}
+		assertEquals(boxes.length * BoundingBox.BYTES, bytes.size());
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		buffer.flip();
+		for (BoundingBox box : boxes) {
+			BoundingBox read = BoundingBox.readFrom(in);
+			assertEquals(box, read);
+			assertEquals(box.intersects180Meridian(), read.intersects180Meridian());
+			assertEquals(box, BoundingBox.readFrom(buffer));
+		}
+	}
+
 	private void assertIntersects(BoundingBox bbox, BoundingBox boundingBox) {
 		assertTrue(bbox + " should intersect " + boundingBox, bbox.intersects(boundingBox));
 		assertTrue(boundingBox + " should intersect " + bbox, boundingBox.intersects(bbox));
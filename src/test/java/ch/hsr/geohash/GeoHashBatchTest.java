@@ -0,0 +1,156 @@
+package ch.hsr.geohash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class GeoHashBatchTest {
+	private final Random rand = new Random(1234);
+
+	@Test
+	public void itShouldEncodeLikeEncodeToLong() {
+		double[] latitudes = randomLatitudes(1000);
+		double[] longitudes = randomLongitudes(1000);
+		for (int bits : new int[] { 0, 1, 25, 60, 64 }) {
+			long[] hashes = new long[latitudes.length];
+			long[] validity = new long[GeoHashBatch.validityLength(latitudes.length)];
+			assertEquals(latitudes.length, GeoHashBatch.encode(latitudes, longitudes, bits, hashes, validity));
+			for (int i = 0; i < latitudes.length; i++) {
+				assertEquals(GeoHash.encodeToLong(latitudes[i], longitudes[i], bits), hashes[i]);
+				assertTrue(GeoHashBatch.isValid(validity, i));
+			}
+		}
+	}
+
+	@Test
+	public void itShouldMarkInvalidRowsWithoutThrowing() {
+		double[] latitudes = { 10, 91, Double.NaN, -90, 45, 0 };
+		double[] longitudes = { 10, 10, 10, 180, -180.5, Double.POSITIVE_INFINITY };
+		long[] hashes = new long[latitudes.length];
+		long[] validity = { -1l };
+
+		assertEquals(2, GeoHashBatch.encode(latitudes, longitudes, 40, hashes, validity));
+		assertTrue(GeoHashBatch.isValid(validity, 0));
+		assertFalse(GeoHashBatch.isValid(validity, 1));
+		assertFalse(GeoHashBatch.isValid(validity, 2));
+		assertTrue(GeoHashBatch.isValid(validity, 3));
+		assertFalse(GeoHashBatch.isValid(validity, 4));
+		assertFalse(GeoHashBatch.isValid(validity, 5));
+		// bits of rows beyond the batch are left alone
+		assertTrue(GeoHashBatch.isValid(validity, 6));
+
+		assertEquals(GeoHash.encodeToLong(10, 10, 40), hashes[0]);
+		assertEquals(0, hashes[1]);
+		assertEquals(0, hashes[2]);
+		assertEquals(GeoHash.encodeToLong(-90, 180, 40), hashes[3]);
+	}
+
+	@Test
+	public void itShouldOnlyTouchTheGivenRange() {
+		double[] latitudes = randomLatitudes(200);
+		double[] longitudes = randomLongitudes(200);
+		latitudes[100] = 100;
+		long[] hashes = new long[200];
+		long[] validity = new long[GeoHashBatch.validityLength(200)];
+
+		assertEquals(69, GeoHashBatch.encode(latitudes, longitudes, 50, 70, 45, hashes, validity));
+		for (int i = 0; i < 200; i++) {
+			boolean inRange = i >= 50 && i < 120 && i != 100;
+			assertEquals("row " + i, inRange, GeoHashBatch.isValid(validity, i));
+			assertEquals("row " + i, inRange ? GeoHash.encodeToLong(latitudes[i], longitudes[i], 45) : 0, hashes[i]);
+		}
+	}
+
+	@Test
+	public void itShouldEncodeBuffers() {
+		double[] latitudes = randomLatitudes(100);
+		double[] longitudes = randomLongitudes(100);
+		latitudes[7] = -95;
+		LongBuffer hashes = LongBuffer.allocate(100);
+		long[] validity = new long[GeoHashBatch.validityLength(100)];
+
+		assertEquals(99, GeoHashBatch.encode(DoubleBuffer.wrap(latitudes), DoubleBuffer.wrap(longitudes), 30, hashes,
+				validity));
+		assertEquals(100, hashes.position());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i != 7, GeoHashBatch.isValid(validity, i));
+			assertEquals(i != 7 ? GeoHash.encodeToLong(latitudes[i], longitudes[i], 30) : 0, hashes.get(i));
+		}
+	}
+
+	@Test
+	public void itShouldDecodeToTheBoundingBoxCenters() {
+		double[] latitudes = randomLatitudes(500);
+		double[] longitudes = randomLongitudes(500);
+		long[] hashes = new long[500];
+		GeoHashBatch.encode(latitudes, longitudes, 37, hashes, new long[GeoHashBatch.validityLength(500)]);
+
+		double[] decodedLatitudes = new double[500];
+		double[] decodedLongitudes = new double[500];
+		GeoHashBatch.decode(hashes, 37, decodedLatitudes, decodedLongitudes);
+		for (int i = 0; i < hashes.length; i++) {
+			WGS84Point center = GeoHash.fromLongValue(hashes[i], 37).getBoundingBoxCenter();
+			assertEquals(center.getLatitude(), decodedLatitudes[i], 0);
+			assertEquals(center.getLongitude(), decodedLongitudes[i], 0);
+		}
+	}
+
+	@Test
+	public void itShouldEncodeInParallelLikeSequentially() {
+		int n = 5 * GeoHashBatch.PARALLEL_CHUNK_ROWS + 17;
+		double[] latitudes = randomLatitudes(n);
+		double[] longitudes = randomLongitudes(n);
+		for (int i = 0; i < n; i += 997) {
+			latitudes[i] = Double.NaN;
+		}
+		long[] expectedHashes = new long[n];
+		long[] expectedValidity = new long[GeoHashBatch.validityLength(n)];
+		int expectedRows = GeoHashBatch.encode(latitudes, longitudes, 52, expectedHashes, expectedValidity);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			long[] hashes = new long[n];
+			long[] validity = new long[GeoHashBatch.validityLength(n)];
+			assertEquals(expectedRows, GeoHashBatch.encodeParallel(latitudes, longitudes, 52, hashes, validity, pool));
+			assertArrayEquals(expectedHashes, hashes);
+			assertArrayEquals(expectedValidity, validity);
+		} finally {
+			pool.shutdown();
+		}
+
+		long[] hashes = new long[n];
+		long[] validity = new long[GeoHashBatch.validityLength(n)];
+		assertEquals(expectedRows, GeoHashBatch.encodeParallel(latitudes, longitudes, 52, hashes, validity));
+		assertArrayEquals(expectedHashes, hashes);
+		assertArrayEquals(expectedValidity, validity);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectColumnsOfDifferentLength() {
+		GeoHashBatch.encode(new double[2], new double[3], 10, new long[3], new long[1]);
+	}
+
+	private double[] randomLatitudes(int n) {
+		double[] latitudes = new double[n];
+		for (int i = 0; i < n; i++) {
+			latitudes[i] = (rand.nextDouble() - 0.5) * 180;
+		}
+		return latitudes;
+	}
+
+	private double[] randomLongitudes(int n) {
+		double[] longitudes = new double[n];
+		for (int i = 0; i < n; i++) {
+			longitudes[i] = (rand.nextDouble() - 0.5) * 360;
+		}
+		return longitudes;
+	}
+}
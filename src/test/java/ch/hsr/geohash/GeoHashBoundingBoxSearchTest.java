@@ -9,8 +9,11 @@
 package ch.hsr.geohash;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import ch.hsr.geohash.queries.GeoHashBoundingBoxQuery;
@@ -38,6 +41,95 @@ public class GeoHashBoundingBoxSearchTest {
 		checkSearchYieldsCorrectBinaryHashes(47.157502, 47.329727, 179.062244, -1, "01", "1111101010101111");
 	}
 
+	@Test
+	public void testMultiPrecisionCoverIsTighterForThinBoxes() {
+		BoundingBox bbox = new BoundingBox(47.30, 47.31, 8.0, 9.5);
+		GeoHashQuery singlePrecision = new GeoHashBoundingBoxQuery(bbox);
+		GeoHashQuery cover = new GeoHashBoundingBoxQuery(bbox, 32, 40);
+
+		int size = cover.getSearchHashes().size();
+		assertTrue(size > 0 && size <= 32);
+		double boxArea = bbox.getLatitudeSize() * bbox.getLongitudeSize();
+		assertTrue(area(cover) >= boxArea);
+		assertTrue(area(cover) < area(singlePrecision) / 10);
+		assertContainsRandomPoints(cover, bbox);
+		assertFalse(cover.contains(new WGS84Point(47.40, 8.5)));
+	}
+
+	@Test
+	public void testMultiPrecisionCoverMixesPrecisionsAndIsSorted() {
+		GeoHashQuery cover = new GeoHashBoundingBoxQuery(new BoundingBox(10, 40, -20, 35), 50, 30);
+		int minBits = 64;
+		int maxBits = 0;
+		GeoHash previous = null;
+		for (GeoHash hash : cover.getSearchHashes()) {
+			minBits = Math.min(minBits, hash.significantBits());
+			maxBits = Math.max(maxBits, hash.significantBits());
+			if (previous != null) {
+				assertTrue(Long.compareUnsigned(previous.longValue(), hash.longValue()) < 0);
+			}
+			previous = hash;
+		}
+		assertTrue(minBits < maxBits);
+		assertTrue(maxBits <= 30);
+	}
+
+	@Test
+	public void testMultiPrecisionCoverOver180Meridian() {
+		BoundingBox bbox = new BoundingBox(-10, 5, 175, -170);
+		GeoHashQuery cover = new GeoHashBoundingBoxQuery(bbox, 20, 64);
+		assertTrue(cover.getSearchHashes().size() <= 20);
+		assertContainsRandomPoints(cover, new BoundingBox(-10, 5, 175, 180));
+		assertContainsRandomPoints(cover, new BoundingBox(-10, 5, -180, -170));
+		assertTrue(cover.contains(new WGS84Point(5, -170)));
+		assertFalse(cover.contains(new WGS84Point(0, 0)));
+	}
+
+	@Test
+	public void testMultiPrecisionCoverLimits() {
+		BoundingBox bbox = new BoundingBox(47.30, 47.31, 8.0, 9.5);
+		GeoHashQuery single = new GeoHashBoundingBoxQuery(bbox, 1, 64);
+		assertEquals(1, single.getSearchHashes().size());
+		assertTrue(single.getSearchHashes().get(0).getBoundingBox().contains(bbox.getNorthEastCorner()));
+		assertTrue(single.getSearchHashes().get(0).getBoundingBox().contains(bbox.getSouthWestCorner()));
+
+		GeoHashQuery world = new GeoHashBoundingBoxQuery(new BoundingBox(-90, 90, -180, 180), 100, 64);
+		assertEquals(1, world.getSearchHashes().size());
+		assertEquals(0, world.getSearchHashes().get(0).significantBits());
+
+		GeoHashQuery coarse = new GeoHashBoundingBoxQuery(bbox, 100, 3);
+		for (GeoHash hash : coarse.getSearchHashes()) {
+			assertTrue(hash.significantBits() <= 3);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiPrecisionCoverNeedsACell() {
+		new GeoHashBoundingBoxQuery(new BoundingBox(0, 1, 0, 1), 0, 20);
+	}
+
+	private double area(GeoHashQuery query) {
+		double area = 0;
+		for (GeoHash hash : query.getSearchHashes()) {
+			BoundingBox box = hash.getBoundingBox();
+			area += box.getLatitudeSize() * box.getLongitudeSize();
+		}
+		return area;
+	}
+
+	private void assertContainsRandomPoints(GeoHashQuery query, BoundingBox bbox) {
+		Random rand = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			double latitude = bbox.getSouthLatitude() + rand.nextDouble() * bbox.getLatitudeSize();
+			double longitude = bbox.getWestLongitude() + rand.nextDouble() * bbox.getLongitudeSize();
+			assertTrue(query.contains(new WGS84Point(latitude, longitude)));
+		}
+		assertTrue(query.contains(bbox.getNorthEastCorner()));
+		assertTrue(query.contains(bbox.getSouthWestCorner()));
+		assertTrue(query.contains(bbox.getNorthWestCorner()));
+		assertTrue(query.contains(bbox.getSouthEastCorner()));
+	}
+
 	private void checkSearchYieldsCorrectNumberOfHashes(double southLat, double northLat, double westLon, double eastLon) {
 		GeoHashQuery search = new GeoHashBoundingBoxQuery(new BoundingBox(southLat, northLat, westLon, eastLon));
 		assertRightNumberOfSearchHashes(search);
@@ -1,11 +1,15 @@
 package ch.hsr.geohash;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import ch.hsr.geohash.queries.GeoHashCircleQuery;
+import ch.hsr.geohash.util.VincentyGeodesy;
 
 public class GeoHashCircleQueryTest {
 	@Test
@@ -43,4 +47,35 @@ public class GeoHashCircleQueryTest {
 		assertFalse(query.contains(test4));
 		assertFalse(query.contains(test5));
 	}
+
+	@Test
+	public void testCornersOfTheEnclosingSquareAreNotContained() {
+		WGS84Point center = new WGS84Point(47.3, 8.5);
+		GeoHashCircleQuery query = new GeoHashCircleQuery(center, 10000);
+		for (double bearing = 45; bearing < 360; bearing += 90) {
+			assertTrue(query.contains(VincentyGeodesy.moveInDirection(center, bearing, 9990)));
+			assertFalse(query.contains(VincentyGeodesy.moveInDirection(center, bearing, 10010)));
+			assertFalse(query.contains(VincentyGeodesy.moveInDirection(center, bearing, 13000)));
+		}
+	}
+
+	@Test
+	public void testContainsIsTheExactDistanceCheck() {
+		checkContainsMatchesVincenty(new WGS84Point(47.3, 8.5), 2500);
+		checkContainsMatchesVincenty(new WGS84Point(-33.9, 151.2), 400000);
+		checkContainsMatchesVincenty(new WGS84Point(65.5, -179.9), 50000);
+		checkContainsMatchesVincenty(new WGS84Point(1, 1), 1);
+	}
+
+	private void checkContainsMatchesVincenty(WGS84Point center, double radius) {
+		GeoHashCircleQuery query = new GeoHashCircleQuery(center, radius);
+		assertTrue(query.getSearchHashes().size() <= GeoHashCircleQuery.DEFAULT_MAX_CELLS);
+		Random rand = new Random(99);
+		for (int i = 0; i < 2000; i++) {
+			WGS84Point point = VincentyGeodesy.moveInDirection(center, rand.nextDouble() * 360,
+					rand.nextDouble() * 1.5 * radius);
+			boolean expected = VincentyGeodesy.distanceInMeters(center, point) <= radius;
+			assertEquals(point.toString(), expected, query.contains(point));
+		}
+	}
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the bit interleaving encoder against the original encoder, which
+ * halves the latitude and longitude ranges once per bit.
+ */
+public class GeoHashEncodingTest {
+
+	@Test
+	public void itShouldMatchTheRangeHalvingEncoderOnTheExtremes() {
+		double[] latitudes = { -90, -45, -0.0, 0, 45, 90 };
+		double[] longitudes = { -180, -90, -0.0, 0, 90, 180 };
+		for (double latitude : latitudes) {
+			for (double longitude : longitudes) {
+				assertEncodesLikeRangeHalving(latitude, longitude);
+			}
+		}
+	}
+
+	@Test
+	public void itShouldMatchTheRangeHalvingEncoderOnCellBoundaries() {
+		for (int bits = 1; bits <= 32; bits++) {
+			double latitudeSize = 180.0 / (1l << bits);
+			double longitudeSize = 360.0 / (1l << bits);
+			for (long cell : new long[] { 1, (1l << bits) / 3, (1l << bits) - 1 }) {
+				double latitude = -90 + cell * latitudeSize;
+				double longitude = -180 + cell * longitudeSize;
+				assertEncodesLikeRangeHalving(latitude, longitude);
+				assertEncodesLikeRangeHalving(Math.nextUp(latitude), Math.nextUp(longitude));
+				assertEncodesLikeRangeHalving(Math.nextAfter(latitude, -90), Math.nextAfter(longitude, -180));
+			}
+		}
+	}
+
+	@Test
+	public void itShouldMatchTheRangeHalvingEncoderNextToTheRangeLimits() {
+		assertEncodesLikeRangeHalving(Math.nextUp(-90.0), Math.nextUp(-180.0));
+		assertEncodesLikeRangeHalving(Math.nextAfter(90.0, 0), Math.nextAfter(180.0, 0));
+		assertEncodesLikeRangeHalving(Double.MIN_VALUE, -Double.MIN_VALUE);
+		assertEncodesLikeRangeHalving(-Double.MIN_VALUE, Double.MIN_VALUE);
+	}
+
+	@Test
+	public void itShouldMatchTheRangeHalvingEncoderOnRandomPoints() {
+		Random rand = new Random(4711);
+		for (int i = 0; i < 2000; i++) {
+			double latitude = (rand.nextDouble() - 0.5) * 180;
+			double longitude = (rand.nextDouble() - 0.5) * 360;
+			assertEncodesLikeRangeHalving(latitude, longitude);
+		}
+	}
+
+	private void assertEncodesLikeRangeHalving(double latitude, double longitude) {
+		for (int bits = 0; bits <= GeoHash.MAX_BIT_PRECISION; bits++) {
+			double[] latitudeRange = { -90, 90 };
+			double[] longitudeRange = { -180, 180 };
+			long expected = encodeByRangeHalving(latitude, longitude, bits, latitudeRange, longitudeRange);
+
+			GeoHash hash = GeoHash.withBitPrecision(latitude, longitude, bits);
+			String message = "(" + latitude + "," + longitude + ") with " + bits + " bits";
+			assertEquals(message, expected, hash.longValue());
+			assertEquals(message, bits, hash.significantBits());
+			assertEquals(message, new BoundingBox(latitudeRange[0], latitudeRange[1], longitudeRange[0],
+					longitudeRange[1]), hash.getBoundingBox());
+		}
+	}
+
+	/**
+	 * the encoder as it was before the bit interleaving encoder replaced it.
+	 */
+	private static long encodeByRangeHalving(double latitude, double longitude, int numberOfBits,
+			double[] latitudeRange, double[] longitudeRange) {
+		long bits = 0;
+		boolean isEvenBit = true;
+		for (int i = 0; i < numberOfBits; i++) {
+			double[] range = isEvenBit ? longitudeRange : latitudeRange;
+			double value = isEvenBit ? longitude : latitude;
+			double mid = (range[0] + range[1]) / 2;
+			bits <<= 1;
+			if (value >= mid) {
+				bits |= 0x1;
+				range[0] = mid;
+			} else {
+				range[1] = mid;
+			}
+			isEvenBit = !isEvenBit;
+		}
+		return numberOfBits == 0 ? 0 : bits << (GeoHash.MAX_BIT_PRECISION - numberOfBits);
+	}
+}
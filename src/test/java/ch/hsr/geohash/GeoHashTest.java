@@ -13,7 +13,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -357,6 +367,45 @@ public class GeoHashTest {
 		assertAdjacentHashesAre(center, adjacent);
 	}
 
+	@Test
+	public void testAdjacentLongValuesMoveOnTheCellGrid() {
+		int[][] directions = { { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+		long[] neighbours = new long[8];
+		for (int bits = 0; bits <= 10; bits++) {
+			long latitudeCells = 1l << (bits / 2);
+			long longitudeCells = 1l << (bits - bits / 2);
+			for (long ord = 0; ord < (1l << bits); ord++) {
+				GeoHash hash = GeoHash.fromOrd(ord, bits);
+				long latitude = hash.getRightAlignedLatitudeBits()[0];
+				long longitude = hash.getRightAlignedLongitudeBits()[0];
+				GeoHash.adjacentLongValues(hash.longValue(), bits, neighbours);
+				for (int i = 0; i < directions.length; i++) {
+					GeoHash neighbour = GeoHash.fromLongValue(neighbours[i], bits);
+					assertEquals((latitude + directions[i][0] + latitudeCells) % latitudeCells,
+							neighbour.getRightAlignedLatitudeBits()[0]);
+					assertEquals((longitude + directions[i][1] + longitudeCells) % longitudeCells,
+							neighbour.getRightAlignedLongitudeBits()[0]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAdjacentLongValuesMatchAdjacentHashes() {
+		for (int i = 0; i < 1000; i++) {
+			GeoHash hash = RandomGeohashes.create();
+			GeoHash[] adjacent = hash.getAdjacent();
+			long[] neighbours = hash.getAdjacentLongValues();
+			assertEquals(hash.getNorthernNeighbour(), adjacent[0]);
+			assertEquals(hash.getEasternNeighbour(), adjacent[2]);
+			assertEquals(hash.getSouthernNeighbour(), adjacent[4]);
+			assertEquals(hash.getWesternNeighbour(), adjacent[6]);
+			for (int j = 0; j < adjacent.length; j++) {
+				assertEquals(adjacent[j].longValue(), neighbours[j]);
+			}
+		}
+	}
+
 	@Test
 	public void testThatAdjacentHashesHavePointInitialized() {
 		String center = "dqcjqc";
@@ -438,6 +487,77 @@ public class GeoHashTest {
 		assertEquals(hash, hashFromLong);
 	}
 
+	@Test
+	public void testEncodeToLong() {
+		for (int i = 0; i < 1000; i++) {
+			GeoHash hash = RandomGeohashes.create();
+			WGS84Point point = hash.getOriginatingPoint();
+			assertEquals(hash.longValue(), GeoHash.encodeToLong(point.getLatitude(), point.getLongitude(), hash.significantBits()));
+		}
+		assertEquals(0x0l, GeoHash.encodeToLong(10.0, 10.0, 0));
+		assertEquals(0xc07e07e07e07e07eL, GeoHash.encodeToLong(10.0, 10.0, 64));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void encodeToLongShouldThrowWhenTheBitPrecisionIsMoreThan64Bits() {
+		GeoHash.encodeToLong(46.0, 8.0, 65);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void encodeToLongShouldThrowOnCoordinatesOutOfRange() {
+		GeoHash.encodeToLong(91.0, 8.0, 30);
+	}
+
+	@Test
+	public void testDecodeFromLong() {
+		double[] bounds = new double[4];
+		for (int i = 0; i < 1000; i++) {
+			GeoHash hash = RandomGeohashes.create();
+			BoundingBox box = hash.getBoundingBox();
+			GeoHash.decodeBounds(hash.longValue(), hash.significantBits(), bounds);
+			assertEquals(box, new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]));
+
+			WGS84Point center = hash.getBoundingBoxCenter();
+			assertEquals(center.getLatitude(), GeoHash.decodeLatitude(hash.longValue(), hash.significantBits()), 0);
+			assertEquals(center.getLongitude(), GeoHash.decodeLongitude(hash.longValue(), hash.significantBits()), 0);
+		}
+		GeoHash.decodeBounds(0x0l, 0, bounds);
+		assertEquals(new BoundingBox(-90, 90, -180, 180), new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]));
+	}
+
+	@Test
+	public void testFromLongValue() {
+		for (int i = 0; i < 1000; i++) {
+			GeoHash hash = RandomGeohashes.create();
+			GeoHash fromLong = GeoHash.fromLongValue(hash.longValue(), hash.significantBits());
+			assertEquals(hash, fromLong);
+			assertEquals(hash.getBoundingBox(), fromLong.getBoundingBox());
+			assertEquals(hash.getBoundingBoxCenter(), fromLong.getOriginatingPoint());
+		}
+	}
+
+	@Test
+	public void testBoundingBoxIsComputedFromTheBits() {
+		GeoHash hash = GeoHash.withCharacterPrecision(47.3, 8.5, 6);
+		BoundingBox box = hash.getBoundingBox();
+		box.expandToInclude(new WGS84Point(0, 0));
+		assertFalse(box.equals(hash.getBoundingBox()));
+		assertEquals(GeoHash.fromGeohashString(hash.toBase32()).getBoundingBox(), hash.getBoundingBox());
+		assertEquals(new WGS84Point(47.3, 8.5), hash.getOriginatingPoint());
+	}
+
+	@Test
+	public void fromLongValueShouldIgnoreInsignificantBits() {
+		GeoHash hash = GeoHash.fromLongValue(0xffffffffffffffffl, 10);
+		assertEquals(0xffc0000000000000l, hash.longValue());
+		assertEquals(10, hash.significantBits());
+		assertEquals(new BoundingBox(84.375, 90, 168.75, 180), hash.getBoundingBox());
+
+		hash = GeoHash.fromLongValue(0xffffffffffffffffl, 0);
+		assertEquals(0x0l, hash.longValue());
+		assertEquals(new BoundingBox(-90, 90, -180, 180), hash.getBoundingBox());
+	}
+
 	@Test
 	public void testNext() {
 		double lat = 37.7;
@@ -602,4 +722,78 @@ public class GeoHashTest {
 		GeoHash hash = GeoHash.withCharacterPrecision(-36.919550434870125,174.71024582237604,7);
 		assertTrue(hash.ord() > 0);
 	}
+
+	@Test
+	public void testEnclosesCircleAroundPoint() {
+		GeoHash hash = GeoHash.fromGeohashString("u0qj");
+		WGS84Point center = hash.getBoundingBoxCenter();
+		assertTrue(hash.enclosesCircleAroundPoint(center, 1000));
+		assertFalse(hash.enclosesCircleAroundPoint(center, 50000));
+		assertFalse(hash.enclosesCircleAroundPoint(hash.getBoundingBox().getNorthWestCorner(), 10));
+		assertTrue(GeoHash.fromBinaryString("").enclosesCircleAroundPoint(new WGS84Point(0, 180), 100000));
+		assertFalse(GeoHash.fromBinaryString("0").enclosesCircleAroundPoint(new WGS84Point(0, 180), 100000));
+	}
+
+	@Test
+	public void testBinaryForm() throws IOException {
+		List<GeoHash> hashes = new ArrayList<>();
+		hashes.add(GeoHash.fromBinaryString(""));
+		hashes.add(GeoHash.fromLongValue(-1l, 64));
+		hashes.add(GeoHash.withCharacterPrecision(47.3, 8.5, 12));
+		hashes.add(GeoHash.withBitPrecision(-33.9, 18.4, 37));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		ByteBuffer buffer = ByteBuffer.allocate(hashes.size() * GeoHash.BYTES);
+		for (GeoHash hash : hashes) {
+			hash.writeTo(out);
+			hash.writeTo(buffer);
+		}
+		assertEquals(hashes.size() * GeoHash.BYTES, bytes.size());
+		assertFalse(buffer.hasRemaining());
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		buffer.flip();
+		for (GeoHash hash : hashes) {
+			assertEquals(hash, GeoHash.readFrom(in));
+			assertEquals(hash, GeoHash.readFrom(buffer));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBinaryFormWithInvalidPrecision() {
+		GeoHash.readFrom(ByteBuffer.wrap(new byte[] { 65, 0, 0, 0, 0, 0, 0, 0, 0 }));
+	}
+
+	@Test
+	public void testSerializedFormIsCompact() throws Exception {
+		List<GeoHash> hashes = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			hashes.add(GeoHash.withBitPrecision(47 + i * 0.001, 8.5, 60));
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(hashes);
+		}
+		// each hash after the first costs its 9 bytes and a few bytes of
+		// stream framing
+		assertTrue("serialized size " + bytes.size(), bytes.size() < 1000 * 16);
+
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(hashes, in.readObject());
+		}
+	}
+
+	@Test
+	public void testMaskAndLastValueOfSignificantBits() {
+		assertEquals(0, GeoHash.maskForSignificantBits(0));
+		assertEquals(0x8000000000000000l, GeoHash.maskForSignificantBits(1));
+		assertEquals(0xfffffffffffffffel, GeoHash.maskForSignificantBits(63));
+		assertEquals(-1l, GeoHash.maskForSignificantBits(64));
+
+		assertEquals(-1l, GeoHash.lastLongValue(0, 0));
+		assertEquals(0x7fffffffffffffffl, GeoHash.lastLongValue(0, 1));
+		assertEquals(0x1235l, GeoHash.lastLongValue(0x1234l, 63));
+		assertEquals(0x1234l, GeoHash.lastLongValue(0x1234l, 64));
+	}
 }
@@ -12,6 +12,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -75,6 +82,18 @@ public class WGS84PointTest {
 		assertFalse(d.hashCode() == new Integer(10).hashCode());
 	}
 
+	@Test
+	public void testBinaryForm() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		d.writeTo(new DataOutputStream(bytes));
+		assertEquals(WGS84Point.BYTES, bytes.size());
+		assertEquals(d, WGS84Point.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+
+		ByteBuffer buffer = d.writeTo(ByteBuffer.allocate(WGS84Point.BYTES));
+		buffer.flip();
+		assertEquals(d, WGS84Point.readFrom(buffer));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testRangeCheck() {
 		new WGS84Point(180, 240);
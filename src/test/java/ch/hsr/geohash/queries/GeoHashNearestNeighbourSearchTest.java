@@ -0,0 +1,155 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.queries.GeoHashNearestNeighbourSearch.CellSource;
+import ch.hsr.geohash.queries.GeoHashNearestNeighbourSearch.EntitySink;
+import ch.hsr.geohash.queries.GeoHashNearestNeighbourSearch.Neighbour;
+import ch.hsr.geohash.util.SphericalGeodesy;
+
+public class GeoHashNearestNeighbourSearchTest {
+	private static final int CELL_BITS = 20;
+
+	private final Random rand = new Random(17);
+	private final List<WGS84Point> points = new ArrayList<>();
+	private final Map<GeoHash, List<WGS84Point>> cells = new HashMap<>();
+	private int visitedCells;
+
+	private final CellSource<WGS84Point> source = new CellSource<WGS84Point>() {
+		@Override
+		public void entitiesIn(GeoHash cell, EntitySink<WGS84Point> sink) {
+			visitedCells++;
+			List<WGS84Point> entities = cells.get(cell);
+			if (entities != null) {
+				for (WGS84Point point : entities) {
+					sink.accept(point, point.getLatitude(), point.getLongitude());
+				}
+			}
+		}
+	};
+
+	private void add(WGS84Point point) {
+		add(point, CELL_BITS);
+	}
+
+	private void add(WGS84Point point, int cellBits) {
+		points.add(point);
+		GeoHash cell = GeoHash.withBitPrecision(point.getLatitude(), point.getLongitude(), cellBits);
+		List<WGS84Point> entities = cells.get(cell);
+		if (entities == null) {
+			entities = new ArrayList<>();
+			cells.put(cell, entities);
+		}
+		entities.add(point);
+	}
+
+	@Test
+	public void itShouldFindTheSameNeighboursAsABruteForceSearch() {
+		for (int i = 0; i < 5000; i++) {
+			add(new WGS84Point((rand.nextDouble() - 0.5) * 180, (rand.nextDouble() - 0.5) * 360));
+		}
+		GeoHashNearestNeighbourSearch<WGS84Point> search = new GeoHashNearestNeighbourSearch<>(source, CELL_BITS);
+		List<WGS84Point> queries = new ArrayList<>(Arrays.asList(new WGS84Point(0, 179.99),
+				new WGS84Point(0, -180), new WGS84Point(89.9, 10), new WGS84Point(-90, 0)));
+		for (int i = 0; i < 50; i++) {
+			queries.add(new WGS84Point((rand.nextDouble() - 0.5) * 180, (rand.nextDouble() - 0.5) * 360));
+		}
+		for (WGS84Point query : queries) {
+			for (int k : new int[] { 1, 7 }) {
+				List<Neighbour<WGS84Point>> neighbours = search.search(query, k);
+				List<Double> expected = bruteForceDistances(query);
+				assertEquals(k, neighbours.size());
+				for (int i = 0; i < k; i++) {
+					assertEquals(expected.get(i), neighbours.get(i).getDistance(), 0);
+					assertEquals(neighbours.get(i).getDistance(),
+							SphericalGeodesy.distanceInMeters(query, neighbours.get(i).getEntity()), 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void itShouldOnlyVisitTheRingsItNeeds() {
+		for (int i = 0; i < 20000; i++) {
+			add(new WGS84Point(47 + rand.nextDouble(), 8 + rand.nextDouble()), 30);
+		}
+		GeoHashNearestNeighbourSearch<WGS84Point> search = new GeoHashNearestNeighbourSearch<>(source, 30);
+		WGS84Point query = new WGS84Point(47.5, 8.5);
+		List<Neighbour<WGS84Point>> neighbours = search.search(query, 10);
+		assertEquals(10, neighbours.size());
+		assertEquals(bruteForceDistances(query).get(9), neighbours.get(9).getDistance(), 0);
+		assertTrue("visited " + visitedCells, visitedCells <= 49);
+	}
+
+	@Test
+	public void itShouldStopAtTheMaximumDistance() {
+		add(new WGS84Point(10, 10));
+		add(new WGS84Point(10, 10.001));
+		add(new WGS84Point(11, 10));
+		GeoHashNearestNeighbourSearch<WGS84Point> search = new GeoHashNearestNeighbourSearch<>(source, CELL_BITS);
+		List<Neighbour<WGS84Point>> neighbours = search.search(new WGS84Point(10, 10), 5, 50000);
+		assertEquals(2, neighbours.size());
+		assertEquals(0, neighbours.get(0).getDistance(), 0);
+
+		assertEquals(3, search.search(new WGS84Point(10, 10), 5).size());
+	}
+
+	@Test
+	public void itShouldFailInsteadOfVisitingTooManyCells() {
+		add(new WGS84Point(10, 10), 40);
+		GeoHashNearestNeighbourSearch<WGS84Point> search = new GeoHashNearestNeighbourSearch<>(source, 40);
+		assertEquals(1, search.search(new WGS84Point(10, 10), 1).size());
+		try {
+			search.search(new WGS84Point(10, 10), 2);
+			fail("expected the search to give up");
+		} catch (IllegalStateException expected) {
+		}
+		assertTrue("visited " + visitedCells, visitedCells < GeoHashNearestNeighbourSearch.DEFAULT_MAX_CELLS + 10000);
+
+		visitedCells = 0;
+		search = new GeoHashNearestNeighbourSearch<>(source, 40, 1000);
+		try {
+			search.search(new WGS84Point(10, 10), Integer.MAX_VALUE);
+			fail("expected the search to give up");
+		} catch (IllegalStateException expected) {
+		}
+		assertTrue("visited " + visitedCells, visitedCells < 1000 + 300);
+	}
+
+	@Test
+	public void itShouldSearchTheWholeWorldOfLargeCells() {
+		add(new WGS84Point(10, 10), 10);
+		add(new WGS84Point(-50, -100), 10);
+		GeoHashNearestNeighbourSearch<WGS84Point> search = new GeoHashNearestNeighbourSearch<>(source, 10);
+		assertEquals(2, search.search(new WGS84Point(10, 10), Integer.MAX_VALUE).size());
+		assertEquals(1024, visitedCells);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectAnEmptyResult() {
+		new GeoHashNearestNeighbourSearch<>(source, CELL_BITS).search(new WGS84Point(0, 0), 0);
+	}
+
+	private List<Double> bruteForceDistances(WGS84Point query) {
+		List<Double> distances = new ArrayList<>();
+		for (WGS84Point point : points) {
+			distances.add(SphericalGeodesy.distanceInMeters(query, point));
+		}
+		Collections.sort(distances);
+		return distances;
+	}
+}
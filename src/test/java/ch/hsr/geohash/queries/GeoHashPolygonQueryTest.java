@@ -0,0 +1,63 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+public class GeoHashPolygonQueryTest {
+	// an L shaped delivery zone
+	private final List<WGS84Point> vertices = Arrays.asList(new WGS84Point(47.30, 8.40), new WGS84Point(47.30,
+			8.60), new WGS84Point(47.35, 8.60), new WGS84Point(47.35, 8.45), new WGS84Point(47.45, 8.45),
+			new WGS84Point(47.45, 8.40));
+
+	@Test
+	public void itShouldContainExactlyThePointsInThePolygon() {
+		GeoHashPolygonQuery query = new GeoHashPolygonQuery(vertices);
+		Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+		path.moveTo(vertices.get(0).getLongitude(), vertices.get(0).getLatitude());
+		for (WGS84Point vertex : vertices.subList(1, vertices.size())) {
+			path.lineTo(vertex.getLongitude(), vertex.getLatitude());
+		}
+		path.closePath();
+
+		Random rand = new Random(5);
+		for (int i = 0; i < 5000; i++) {
+			double latitude = 47.25 + rand.nextDouble() * 0.25;
+			double longitude = 8.35 + rand.nextDouble() * 0.3;
+			assertEquals(path.contains(longitude, latitude), query.contains(new WGS84Point(latitude, longitude)));
+		}
+		assertFalse(query.contains(new WGS84Point(47.40, 8.55)));
+		assertTrue(query.contains(new WGS84Point(47.40, 8.42)));
+	}
+
+	@Test
+	public void itShouldCoverThePolygonWithInsideAndBoundaryHashes() {
+		GeoHashPolygonQuery query = new GeoHashPolygonQuery(vertices, 40);
+		List<GeoHash> hashes = query.getSearchHashes();
+		assertTrue(hashes.size() <= 40);
+		int minBits = 64;
+		int maxBits = 0;
+		for (GeoHash hash : hashes) {
+			minBits = Math.min(minBits, hash.significantBits());
+			maxBits = Math.max(maxBits, hash.significantBits());
+		}
+		assertTrue(minBits < maxBits);
+		assertTrue(query.contains(GeoHash.withBitPrecision(47.32, 8.5, 40)));
+		assertFalse(query.contains(GeoHash.withBitPrecision(47.42, 8.58, 40)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectPolygonsWithTooFewVertices() {
+		new GeoHashPolygonQuery(vertices.subList(0, 2));
+	}
+}
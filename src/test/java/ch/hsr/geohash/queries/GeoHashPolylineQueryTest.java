@@ -0,0 +1,69 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.WGS84Point;
+import ch.hsr.geohash.util.SphericalGeodesy;
+
+public class GeoHashPolylineQueryTest {
+	private final List<WGS84Point> route = Arrays.asList(new WGS84Point(47.37, 8.54), new WGS84Point(47.40, 8.60),
+			new WGS84Point(47.45, 8.56), new WGS84Point(47.50, 8.70));
+
+	@Test
+	public void itShouldContainExactlyThePointsWithinTheBuffer() {
+		GeoHashPolylineQuery query = new GeoHashPolylineQuery(route, 1000);
+		Random rand = new Random(8);
+		int contained = 0;
+		for (int i = 0; i < 5000; i++) {
+			double latitude = 47.35 + rand.nextDouble() * 0.17;
+			double longitude = 8.52 + rand.nextDouble() * 0.2;
+			boolean expected = false;
+			for (int j = 1; j < route.size(); j++) {
+				expected |= SphericalGeodesy.distanceToSegmentInMeters(latitude, longitude, route.get(j - 1)
+						.getLatitude(), route.get(j - 1).getLongitude(), route.get(j).getLatitude(), route.get(j)
+						.getLongitude()) <= 1000;
+			}
+			assertEquals(expected, query.contains(new WGS84Point(latitude, longitude)));
+			contained += expected ? 1 : 0;
+		}
+		assertTrue(contained > 100);
+		assertTrue(query.getSearchHashes().size() <= GeoHashPolylineQuery.DEFAULT_MAX_CELLS);
+	}
+
+	@Test
+	public void itShouldMeasureTheDistanceToTheClosestSegment() {
+		GeoHashPolylineQuery query = new GeoHashPolylineQuery(Arrays.asList(new WGS84Point(0, 0), new WGS84Point(
+				0, 10)), 0);
+		double degree = Math.toRadians(1) * SphericalGeodesy.EARTH_RADIUS;
+		assertEquals(degree, query.distanceInMeters(1, 5), 1e-6);
+		assertEquals(degree, query.distanceInMeters(0, -1), 1e-6);
+		assertEquals(degree, query.distanceInMeters(0, 11), 1e-6);
+		assertEquals(0, query.distanceInMeters(0, 3), 1e-6);
+	}
+
+	@Test
+	public void itShouldWorkAcrossThe180Meridian() {
+		GeoHashPolylineQuery query = new GeoHashPolylineQuery(Arrays.asList(new WGS84Point(-17, 179.5),
+				new WGS84Point(-17.2, -179.5)), 5000);
+		assertTrue(query.contains(new WGS84Point(-17.1, 180)));
+		assertTrue(query.contains(new WGS84Point(-17.12, -179.9)));
+		assertFalse(query.contains(new WGS84Point(-17.5, -179.9)));
+	}
+
+	@Test
+	public void itShouldBeACircleForASingleVertex() {
+		GeoHashPolylineQuery query = new GeoHashPolylineQuery(Collections.singletonList(new WGS84Point(10, 10)),
+				2000);
+		assertTrue(query.contains(new WGS84Point(10.01, 10)));
+		assertFalse(query.contains(new WGS84Point(10.02, 10)));
+	}
+}
@@ -0,0 +1,84 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.WGS84Point;
+
+public class GeoHashQueryCacheTest {
+	private final Random rand = new Random(3);
+
+	@Test
+	public void itShouldReturnTheCachedQueryForTheSameBox() {
+		GeoHashQueryCache cache = new GeoHashQueryCache(10);
+		BoundingBox bbox = new BoundingBox(47.157502, 47.329727, 8.562244, 8.859215);
+		GeoHashBoundingBoxQuery query = cache.get(bbox);
+		assertEquals(new GeoHashBoundingBoxQuery(bbox).getSearchHashes(), query.getSearchHashes());
+		assertSame(query, cache.get(new BoundingBox(bbox)));
+		assertSame(query, cache.get(new BoundingBox(47.16, 47.32, 8.57, 8.85)));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void itShouldCoverEveryBoxThatSharesAKey() {
+		GeoHashQueryCache cache = new GeoHashQueryCache(1000);
+		for (int i = 0; i < 2000; i++) {
+			// jittered viewports around a few places, some over the 180 meridian
+			double latitude = new double[] { 47.3, -33.9, 65 }[i % 3] + rand.nextDouble() * 0.05;
+			double longitude = new double[] { 8.5, 151.2, 179.9 }[i % 3] + rand.nextDouble() * 0.05;
+			double height = 0.01 + rand.nextDouble() * 0.01;
+			double width = 0.01 + rand.nextDouble() * 0.01;
+			double east = longitude + width > 180 ? longitude + width - 360 : longitude + width;
+			BoundingBox bbox = new BoundingBox(latitude, latitude + height, longitude, east);
+			GeoHashBoundingBoxQuery query = i % 2 == 0 ? cache.get(bbox) : cache.get(bbox, 20, 30);
+			assertTrue(query.contains(bbox.getNorthEastCorner()));
+			assertTrue(query.contains(bbox.getNorthWestCorner()));
+			assertTrue(query.contains(bbox.getSouthEastCorner()));
+			assertTrue(query.contains(bbox.getSouthWestCorner()));
+			for (int j = 0; j < 10; j++) {
+				double pointLongitude = longitude + rand.nextDouble() * width;
+				assertTrue(query.contains(new WGS84Point(latitude + rand.nextDouble() * height,
+						pointLongitude > 180 ? pointLongitude - 360 : pointLongitude)));
+			}
+		}
+		assertTrue(cache.getHitCount() > 1000);
+	}
+
+	@Test
+	public void itShouldEvictTheLeastRecentlyUsedQuery() {
+		GeoHashQueryCache cache = new GeoHashQueryCache(2);
+		BoundingBox first = new BoundingBox(10, 10.1, 10, 10.1);
+		BoundingBox second = new BoundingBox(20, 20.1, 20, 20.1);
+		BoundingBox third = new BoundingBox(30, 30.1, 30, 30.1);
+		GeoHashBoundingBoxQuery firstQuery = cache.get(first);
+		GeoHashBoundingBoxQuery secondQuery = cache.get(second);
+		assertSame(firstQuery, cache.get(first));
+		cache.get(third);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertSame(firstQuery, cache.get(first));
+		assertNotSame(secondQuery, cache.get(second));
+	}
+
+	@Test
+	public void itShouldKeepPlainAndMixedPrecisionCoversApart() {
+		GeoHashQueryCache cache = new GeoHashQueryCache(10);
+		BoundingBox bbox = new BoundingBox(47.30, 47.31, 8.0, 9.5);
+		GeoHashBoundingBoxQuery plain = cache.get(bbox);
+		GeoHashBoundingBoxQuery mixed = cache.get(bbox, 32, 40);
+		assertNotSame(plain, mixed);
+		assertSame(mixed, cache.get(bbox, 32, 40));
+		assertNotSame(mixed, cache.get(bbox, 16, 40));
+		assertEquals(3, cache.size());
+	}
+}
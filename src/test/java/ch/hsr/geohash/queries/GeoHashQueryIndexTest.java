@@ -0,0 +1,108 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+public class GeoHashQueryIndexTest {
+	private GeoHashQueryIndex<Integer> index;
+	private Map<Integer, GeoHashQuery> queries;
+	private Random rand;
+
+	@Before
+	public void setUp() {
+		index = new GeoHashQueryIndex<>();
+		queries = new HashMap<>();
+		rand = new Random(17);
+		for (int i = 0; i < 300; i++) {
+			GeoHashQuery query;
+			double latitude = 46 + rand.nextDouble() * 2;
+			double longitude = 7 + rand.nextDouble() * 2;
+			if (i % 2 == 0) {
+				query = new GeoHashCircleQuery(new WGS84Point(latitude, longitude), 1000 + rand.nextDouble() * 20000);
+			} else {
+				query = new GeoHashBoundingBoxQuery(new BoundingBox(latitude, latitude + rand.nextDouble() * 0.3,
+						longitude, longitude + rand.nextDouble() * 0.3));
+			}
+			queries.put(i, query);
+			index.add(i, query);
+		}
+	}
+
+	@Test
+	public void itShouldFindTheQueriesContainingAPoint() {
+		assertEquals(300, index.size());
+		checkMatchesLikeTheQueries();
+	}
+
+	@Test
+	public void itShouldForgetRemovedQueries() {
+		for (int i = 0; i < 300; i += 3) {
+			assertTrue(index.remove(i));
+			queries.remove(i);
+		}
+		assertFalse(index.remove(0));
+		assertEquals(200, index.size());
+		checkMatchesLikeTheQueries();
+
+		for (int i = 0; i < 300; i++) {
+			index.remove(i);
+		}
+		assertEquals(0, index.size());
+		assertTrue(index.getMatches(new WGS84Point(47, 8)).isEmpty());
+		assertTrue(index.getCandidates(GeoHash.encodeToLong(47, 8, 64)).isEmpty());
+	}
+
+	@Test
+	public void itShouldReplaceQueriesAddedUnderTheSameKey() {
+		GeoHashQuery query = new GeoHashCircleQuery(new WGS84Point(-33.9, 18.4), 5000);
+		index.add(7, query);
+		queries.put(7, query);
+		assertEquals(300, index.size());
+		assertTrue(index.getMatches(new WGS84Point(-33.9, 18.4)).contains(7));
+		checkMatchesLikeTheQueries();
+	}
+
+	@Test
+	public void itShouldReturnCandidatesOfTheSearchHashes() {
+		for (int i = 0; i < 1000; i++) {
+			long hashValue = GeoHash.encodeToLong(46 + rand.nextDouble() * 2.5, 7 + rand.nextDouble() * 2.5, 64);
+			GeoHash pointHash = GeoHash.fromLongValue(hashValue, 64);
+			Set<Integer> expected = new HashSet<>();
+			for (Map.Entry<Integer, GeoHashQuery> entry : queries.entrySet()) {
+				for (GeoHash hash : entry.getValue().getSearchHashes()) {
+					if (pointHash.within(hash)) {
+						expected.add(entry.getKey());
+					}
+				}
+			}
+			assertEquals(expected, index.getCandidates(hashValue));
+		}
+	}
+
+	private void checkMatchesLikeTheQueries() {
+		for (int i = 0; i < 2000; i++) {
+			WGS84Point point = new WGS84Point(46 + rand.nextDouble() * 2.5, 7 + rand.nextDouble() * 2.5);
+			Set<Integer> expected = new HashSet<>();
+			for (Map.Entry<Integer, GeoHashQuery> entry : queries.entrySet()) {
+				if (entry.getValue().contains(point)) {
+					expected.add(entry.getKey());
+				}
+			}
+			assertEquals(expected, index.getMatches(point));
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+public class GeoHashQueryMatcherTest {
+
+	@Test
+	public void itShouldMatchLikeTheQuery() {
+		checkMatchesLikeTheQuery(new GeoHashBoundingBoxQuery(new BoundingBox(47.157502, 47.329727, 8.562244,
+				8.859215)), 47.1, 8.5);
+		checkMatchesLikeTheQuery(new GeoHashBoundingBoxQuery(new BoundingBox(40, 42, 179, -178), 60, 40), 39.5, 178.5);
+		checkMatchesLikeTheQuery(new GeoHashCircleQuery(new WGS84Point(47.3, 8.5), 20000), 47, 8);
+	}
+
+	private void checkMatchesLikeTheQuery(GeoHashQuery query, double south, double west) {
+		GeoHashQueryMatcher matcher = GeoHashQueryMatcher.compile(query);
+		Random rand = new Random(11);
+		for (int i = 0; i < 5000; i++) {
+			double latitude = south + rand.nextDouble() * 3;
+			double longitude = west + rand.nextDouble() * 3;
+			if (longitude > 180) {
+				longitude -= 360;
+			}
+			GeoHash pointHash = GeoHash.withBitPrecision(latitude, longitude, 64);
+			boolean expected = false;
+			for (GeoHash hash : query.getSearchHashes()) {
+				expected |= pointHash.within(hash);
+			}
+			assertEquals(expected, matcher.matches(latitude, longitude));
+			assertEquals(expected, matcher.matches(pointHash.longValue()));
+			assertEquals(expected, matcher.matches(pointHash));
+			if (query instanceof GeoHashBoundingBoxQuery) {
+				assertEquals(expected, query.contains(new WGS84Point(latitude, longitude)));
+			}
+		}
+	}
+
+	@Test
+	public void itShouldMatchTheRangeBounds() {
+		GeoHashQueryMatcher matcher = GeoHashQueryMatcher.of(GeoHashRanges.of(Arrays.asList(
+				GeoHash.fromBinaryString("01"), GeoHash.fromBinaryString("1011"), GeoHash.fromBinaryString("111"))));
+		assertEquals(3, matcher.size());
+		assertFalse(matcher.matches(0x3fffffffffffffffl));
+		assertTrue(matcher.matches(0x4000000000000000l));
+		assertTrue(matcher.matches(0x7fffffffffffffffl));
+		assertFalse(matcher.matches(0x8000000000000000l));
+		assertTrue(matcher.matches(0xb000000000000000l));
+		assertFalse(matcher.matches(0xc000000000000000l));
+		assertTrue(matcher.matches(-1l));
+
+		assertTrue(matcher.matches(GeoHash.fromBinaryString("0110")));
+		assertTrue(matcher.matches(GeoHash.fromBinaryString("01")));
+		assertFalse(matcher.matches(GeoHash.fromBinaryString("0")));
+		assertFalse(matcher.matches(GeoHash.fromBinaryString("")));
+	}
+
+	@Test
+	public void itShouldMatchFullPrecisionHashesOnlyWithinTheQuery() {
+		GeoHash inside = GeoHash.withBitPrecision(10, 10, 64);
+		GeoHashQueryMatcher matcher = GeoHashQueryMatcher.compile(new GeoHashBoundingBoxQuery(new BoundingBox(10, 10,
+				10, 10), 4, 64));
+		assertTrue(matcher.matches(inside));
+		assertFalse(matcher.matches(GeoHash.withBitPrecision(80, 170, 64)));
+		assertFalse(matcher.matches(GeoHash.fromLongValue(inside.longValue() + 1, 64)));
+	}
+
+	@Test
+	public void itShouldMatchNothingWithoutRanges() {
+		GeoHashQueryMatcher matcher = GeoHashQueryMatcher.of(GeoHashRanges.of(Collections.<GeoHash> emptyList()));
+		assertFalse(matcher.matches(0));
+		assertFalse(matcher.matches(10, 10));
+		assertFalse(matcher.matches(GeoHash.fromBinaryString("")));
+	}
+}
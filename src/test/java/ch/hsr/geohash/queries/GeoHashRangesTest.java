@@ -0,0 +1,94 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+public class GeoHashRangesTest {
+
+	@Test
+	public void itShouldCoalesceAdjacentAndNestedHashes() {
+		GeoHashRanges ranges = GeoHashRanges.of(Arrays.asList(GeoHash.fromBinaryString("0101"),
+				GeoHash.fromBinaryString("0100"), GeoHash.fromBinaryString("01001"), GeoHash.fromBinaryString("11")));
+		assertEquals(2, ranges.size());
+		assertEquals(0x4000000000000000l, ranges.getStart(0));
+		assertEquals(0x5fffffffffffffffl, ranges.getLast(0));
+		assertEquals(0x6000000000000000l, ranges.getEndExclusive(0));
+		assertEquals(0xc000000000000000l, ranges.getStart(1));
+		assertEquals(-1l, ranges.getLast(1));
+		assertEquals(0, ranges.getEndExclusive(1));
+	}
+
+	@Test
+	public void itShouldCoverTheWholeKeySpaceWithTheEmptyHash() {
+		GeoHashRanges ranges = GeoHashRanges.of(Arrays.asList(GeoHash.fromBinaryString("1"),
+				GeoHash.fromBinaryString("")));
+		assertEquals(1, ranges.size());
+		assertEquals(0, ranges.getStart(0));
+		assertEquals(-1l, ranges.getLast(0));
+	}
+
+	@Test
+	public void itShouldMergeTheSmallestGaps() {
+		GeoHashRanges ranges = GeoHashRanges.of(Arrays.asList(GeoHash.fromBinaryString("0000"),
+				GeoHash.fromBinaryString("0010"), GeoHash.fromBinaryString("1000"), GeoHash.fromBinaryString("1111")));
+		assertEquals(4, ranges.size());
+
+		GeoHashRanges merged = ranges.mergeToAtMost(3);
+		assertEquals(3, merged.size());
+		assertEquals(0, merged.getStart(0));
+		assertEquals(0x2fffffffffffffffl, merged.getLast(0));
+
+		merged = ranges.mergeToAtMost(2);
+		assertEquals(2, merged.size());
+		assertEquals(0x8fffffffffffffffl, merged.getLast(0));
+		assertEquals(0xf000000000000000l, merged.getStart(1));
+
+		merged = ranges.mergeToAtMost(1);
+		assertEquals(0, merged.getStart(0));
+		assertEquals(-1l, merged.getLast(0));
+		assertEquals(ranges, ranges.mergeToAtMost(10));
+	}
+
+	@Test
+	public void itShouldContainExactlyThePointsOfTheQuery() {
+		GeoHashQuery query = new GeoHashBoundingBoxQuery(new BoundingBox(40, 42, 179, -178), 40, 40);
+		GeoHashRanges ranges = query.getSearchRanges();
+		for (int i = 1; i < ranges.size(); i++) {
+			assertTrue(Long.compareUnsigned(ranges.getLast(i - 1) + 1, ranges.getStart(i)) < 0);
+		}
+		Random rand = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			WGS84Point point = new WGS84Point((rand.nextDouble() - 0.5) * 180, (rand.nextDouble() - 0.5) * 360);
+			long value = GeoHash.encodeToLong(point.getLatitude(), point.getLongitude(), 64);
+			assertEquals(query.contains(point), ranges.contains(value));
+		}
+		assertTrue(ranges.contains(GeoHash.encodeToLong(41, 179.5, 64)));
+		assertFalse(ranges.contains(GeoHash.encodeToLong(41, 0, 64)));
+		assertTrue(query.getSearchRanges(3).size() <= 3);
+	}
+
+	@Test
+	public void itShouldCoverOnlyTheHashItselfAtFullPrecision() {
+		GeoHash hash = GeoHash.withBitPrecision(10, 10, 64);
+		GeoHashRanges ranges = GeoHashRanges.of(Arrays.asList(hash));
+		assertEquals(1, ranges.size());
+		assertEquals(hash.longValue(), ranges.getStart(0));
+		assertEquals(hash.longValue(), ranges.getLast(0));
+		assertEquals(hash.longValue(), GeoHashRanges.lastValueOf(hash));
+
+		GeoHashRanges cover = new GeoHashBoundingBoxQuery(new BoundingBox(10, 10, 10, 10), 4, 64).getSearchRanges();
+		assertTrue(cover.contains(hash.longValue()));
+		assertFalse(cover.contains(GeoHash.encodeToLong(80, 170, 64)));
+		assertFalse(cover.contains(hash.longValue() + 1));
+	}
+}
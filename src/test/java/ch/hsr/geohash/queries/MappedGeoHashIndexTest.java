@@ -0,0 +1,208 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+public class MappedGeoHashIndexTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private SortedGeoHashIndex sorted;
+
+	@Before
+	public void setUp() {
+		Random rand = new Random(29);
+		long[] hashValues = new long[20000];
+		long[] ids = new long[hashValues.length];
+		for (int i = 0; i < hashValues.length; i++) {
+			double latitude = i % 50 == 0 ? rand.nextDouble() * 180 - 90 : 47 + rand.nextDouble();
+			double longitude = i % 50 == 0 ? rand.nextDouble() * 360 - 180 : 8 + rand.nextDouble();
+			hashValues[i] = GeoHash.encodeToLong(latitude, longitude, 60);
+			ids[i] = rand.nextLong();
+		}
+		sorted = new SortedGeoHashIndex(hashValues, ids);
+	}
+
+	@Test
+	public void itShouldAnswerLikeTheIndexInMemory() throws IOException {
+		for (int directoryBits : new int[] { 0, 5, 16 }) {
+			Path path = folder.newFile().toPath();
+			MappedGeoHashIndex.write(path, sorted, directoryBits);
+			assertEquals(32 + ((1 << directoryBits) + 1) * 8 + sorted.size() * 16, Files.size(path));
+			// segments of 256 bytes, so the records are spread over many
+			try (MappedGeoHashIndex mapped = MappedGeoHashIndex.open(path, 8)) {
+				assertEquals(directoryBits, mapped.getDirectoryBits());
+				checkSameAnswers(sorted, mapped);
+			}
+		}
+	}
+
+	@Test
+	public void itShouldMapAnEmptyIndex() throws IOException {
+		Path path = folder.newFile().toPath();
+		new MappedGeoHashIndex.Writer(path).finish();
+		try (MappedGeoHashIndex mapped = MappedGeoHashIndex.open(path)) {
+			assertEquals(0, mapped.size());
+			assertEquals(0, mapped.count(GeoHash.fromLongValue(0, 0)));
+			assertEquals(0, mapped.firstAtOrAfter(-1l));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectPointsOutOfOrder() throws IOException {
+		try (MappedGeoHashIndex.Writer writer = new MappedGeoHashIndex.Writer(folder.newFile().toPath(), 4)) {
+			writer.add(-1l, 1);
+			writer.add(1l, 2);
+		}
+	}
+
+	@Test
+	public void itShouldNotWriteAnIndexWhenAddingFailed() throws IOException {
+		Path path = folder.newFile().toPath();
+		try (MappedGeoHashIndex.Writer writer = new MappedGeoHashIndex.Writer(path, 4)) {
+			for (int i = 0; i < 10000; i++) {
+				writer.add(i, i);
+			}
+			writer.add(0, 0);
+			fail("expected the point out of order to be rejected");
+		} catch (IllegalArgumentException expected) {
+		}
+		checkRejected(path);
+	}
+
+	@Test
+	public void itShouldNotWriteAnIndexWhenTheSourceFailed() throws IOException {
+		Path path = folder.newFile().toPath();
+		GeoHashIndex failing = new SortedGeoHashIndex(new long[] { 1, 2, 3 }, new long[] { 1, 2, 3 }) {
+			private static final long serialVersionUID = 1l;
+
+			@Override
+			public long getHashValue(long i) {
+				if (i == 2) {
+					throw new IllegalStateException("the source failed");
+				}
+				return super.getHashValue(i);
+			}
+		};
+		try {
+			MappedGeoHashIndex.write(path, failing, 4);
+			fail("expected the failure of the source");
+		} catch (IllegalStateException expected) {
+		}
+		checkRejected(path);
+
+		try (MappedGeoHashIndex.Writer writer = new MappedGeoHashIndex.Writer(path, 4)) {
+			writer.add(1, 1);
+			throw new IOException("reading the points failed");
+		} catch (IOException expected) {
+		}
+		checkRejected(path);
+	}
+
+	@Test
+	public void itShouldIgnoreClosingTwice() throws IOException {
+		Path path = folder.newFile().toPath();
+		MappedGeoHashIndex.Writer writer = new MappedGeoHashIndex.Writer(path, 4);
+		writer.add(1, 1);
+		writer.finish();
+		writer.close();
+		writer.close();
+		try (MappedGeoHashIndex mapped = MappedGeoHashIndex.open(path)) {
+			assertEquals(1, mapped.size());
+		}
+		try {
+			writer.add(2, 2);
+			fail("expected the finished writer to reject points");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+	@Test
+	public void itShouldRejectFilesThatAreNoIndex() throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, new byte[100]);
+		checkRejected(path);
+
+		MappedGeoHashIndex.write(path, sorted, 4);
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.setLength(file.length() - 1);
+		}
+		checkRejected(path);
+
+		// a directory entry beyond the number of points
+		MappedGeoHashIndex.write(path, sorted, 4);
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.seek(32 + 3 * 8);
+			file.writeLong(sorted.size() + 1);
+		}
+		checkRejected(path);
+
+		// entries that decrease
+		MappedGeoHashIndex.write(path, sorted, 4);
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.seek(32 + 8 * 8);
+			file.writeLong(0);
+			file.seek(32 + 7 * 8);
+			file.writeLong(1);
+		}
+		checkRejected(path);
+	}
+
+	private void checkRejected(Path path) {
+		try {
+			MappedGeoHashIndex.open(path).close();
+			fail("expected an IOException for " + path);
+		} catch (IOException expected) {
+		}
+	}
+
+	private void checkSameAnswers(GeoHashIndex expected, GeoHashIndex actual) {
+		assertEquals(expected.size(), actual.size());
+		for (long i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getHashValue(i), actual.getHashValue(i));
+			assertEquals(expected.getId(i), actual.getId(i));
+		}
+		Random rand = new Random(30);
+		for (int i = 0; i < 300; i++) {
+			GeoHash hash = GeoHash.withBitPrecision(46.8 + rand.nextDouble() * 1.4, 7.8 + rand.nextDouble() * 1.4,
+					rand.nextInt(45));
+			assertEquals(expected.firstAtOrAfter(hash.longValue()), actual.firstAtOrAfter(hash.longValue()));
+			assertEquals(expected.count(hash), actual.count(hash));
+		}
+		for (int i = 0; i < 100; i++) {
+			GeoHash hash = GeoHash.fromLongValue(expected.getHashValue(rand.nextInt((int) expected.size())), 64);
+			long count = actual.count(hash);
+			assertEquals(expected.count(hash), count);
+			assertEquals(expected.firstAtOrAfter(hash.longValue() + 1) - expected.firstAtOrAfter(hash.longValue()),
+					count);
+		}
+		List<GeoHashQuery> queries = Arrays.asList(new GeoHashCircleQuery(new WGS84Point(47.5, 8.5), 8000),
+				new GeoHashBoundingBoxQuery(new BoundingBox(-30, 30, 150, -150), 100, 30));
+		for (GeoHashQuery query : queries) {
+			List<Long> expectedIds = new ArrayList<>();
+			expected.forEachId(query, (long id) -> expectedIds.add(id));
+			List<Long> actualIds = new ArrayList<>();
+			actual.forEachId(query, (long id) -> actualIds.add(id));
+			assertEquals(expectedIds, actualIds);
+			assertEquals(expectedIds.size(), actual.count(query.getSearchRanges()));
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package ch.hsr.geohash.queries;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+
+public class SortedGeoHashIndexTest {
+	private long[] hashValues;
+	private long[] ids;
+	private SortedGeoHashIndex index;
+
+	@Before
+	public void setUp() {
+		Random rand = new Random(19);
+		hashValues = new long[50000];
+		ids = new long[hashValues.length];
+		for (int i = 0; i < hashValues.length; i++) {
+			// points in a small area, with a few on the other side of the world
+			double latitude = i % 100 == 0 ? -40 : 47 + rand.nextDouble();
+			double longitude = i % 100 == 0 ? -170 : 8 + rand.nextDouble();
+			hashValues[i] = GeoHash.encodeToLong(latitude, longitude, 60);
+			ids[i] = 1000000l + i;
+		}
+		index = new SortedGeoHashIndex(hashValues, ids);
+	}
+
+	@Test
+	public void itShouldSortUnsignedAndKeepTheIdsAlongside() {
+		long[] sorted = hashValues.clone();
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] ^= Long.MIN_VALUE;
+		}
+		Arrays.sort(sorted);
+		for (int i = 0; i < sorted.length; i++) {
+			assertEquals(sorted[i] ^ Long.MIN_VALUE, index.getHashValue(i));
+			assertEquals(hashValues[(int) (index.getId(i) - 1000000l)], index.getHashValue(i));
+		}
+
+		long[] values = { -1l, 0, Long.MIN_VALUE, Long.MAX_VALUE, 5, 5, -5 };
+		long[] valueIds = { 0, 1, 2, 3, 4, 5, 6 };
+		SortedGeoHashIndex small = new SortedGeoHashIndex(values, valueIds);
+		long[] order = new long[values.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = small.getId(i);
+		}
+		assertArrayEquals(new long[] { 1, 4, 5, 3, 2, 6, 0 }, order);
+		assertEquals(3, small.firstAtOrAfter(6));
+		assertEquals(6, small.firstAtOrAfter(-1l));
+	}
+
+	@Test
+	public void itShouldFindThePointsWithinAHash() {
+		Random rand = new Random(20);
+		for (int i = 0; i < 200; i++) {
+			GeoHash hash;
+			if (i % 4 == 0) {
+				// a point at full precision, only the points with the same hash
+				// value lie within it
+				hash = GeoHash.fromLongValue(hashValues[rand.nextInt(hashValues.length)], 64);
+			} else {
+				hash = GeoHash.withBitPrecision(47 + rand.nextDouble(), 8 + rand.nextDouble(), rand.nextInt(40));
+			}
+			long[] expected = idsWithin(Arrays.asList(hash));
+			assertArrayEquals(expected, sorted(index.getIds(hash)));
+			assertEquals(expected.length, index.count(hash));
+			List<Long> consumed = new ArrayList<>();
+			index.forEachId(hash, (long id) -> consumed.add(id));
+			assertEquals(expected.length, consumed.size());
+		}
+		assertEquals(hashValues.length, index.count(GeoHash.fromLongValue(0, 0)));
+	}
+
+	@Test
+	public void itShouldFindThePointsWithinTheSearchHashesOfAQuery() {
+		List<GeoHashQuery> queries = Arrays.asList(
+				new GeoHashCircleQuery(new WGS84Point(47.5, 8.5), 5000),
+				new GeoHashBoundingBoxQuery(new BoundingBox(47.1, 47.2, 8.1, 8.9), 200, 40),
+				new GeoHashBoundingBoxQuery(new BoundingBox(-50, 50, 170, -160)),
+				new GeoHashPolygonQuery(Arrays.asList(new WGS84Point(47, 8), new WGS84Point(48, 8.5),
+						new WGS84Point(47, 9))));
+		for (GeoHashQuery query : queries) {
+			long[] expected = idsWithin(query.getSearchHashes());
+			long[] actual = index.getIds(query);
+			assertArrayEquals(expected, sorted(actual));
+			assertEquals(expected.length, index.count(query.getSearchRanges()));
+			List<Long> consumed = new ArrayList<>();
+			index.forEachId(query.getSearchRanges(), (long id) -> consumed.add(id));
+			assertEquals(expected.length, consumed.size());
+		}
+	}
+
+	private long[] idsWithin(List<GeoHash> hashes) {
+		List<Long> result = new ArrayList<>();
+		for (int i = 0; i < hashValues.length; i++) {
+			GeoHash point = GeoHash.fromLongValue(hashValues[i], 60);
+			for (GeoHash hash : hashes) {
+				if (point.within(hash)) {
+					result.add(ids[i]);
+					break;
+				}
+			}
+		}
+		long[] array = new long[result.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = result.get(i);
+		}
+		return array;
+	}
+
+	private long[] sorted(long[] values) {
+		long[] copy = values.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+}
@@ -0,0 +1,75 @@
+package ch.hsr.geohash.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.GeoHash;
+
+public class Base32Test {
+
+	@Test
+	public void testKnownValues() {
+		assertEquals(0x6ff0410000000000l, Base32.decode("ezs42"));
+		assertEquals("ezs42", Base32.encode(0x6ff0414000000000l, 5));
+		assertEquals(0x0l, Base32.decode(""));
+		assertEquals("", Base32.encode(0xffffffffffffffffl, 0));
+	}
+
+	@Test
+	public void testRoundTripThroughBuffers() {
+		char[] chars = new char[16];
+		byte[] bytes = new byte[16];
+		for (int i = 0; i < 1000; i++) {
+			GeoHash hash = RandomGeohashes.createWith5BitsPrecision();
+			int characters = hash.getCharacterPrecision();
+			String base32 = hash.toBase32();
+
+			Base32.encode(hash.longValue(), characters, chars, 2);
+			Base32.encode(hash.longValue(), characters, bytes, 3);
+			assertEquals(base32, new String(chars, 2, characters));
+			assertEquals(base32, new String(bytes, 3, characters, java.nio.charset.StandardCharsets.US_ASCII));
+
+			assertEquals(hash.longValue(), Base32.decode(base32));
+			assertEquals(hash.longValue(), Base32.decode(chars, 2, characters));
+			assertEquals(hash.longValue(), Base32.decode(bytes, 3, characters));
+		}
+	}
+
+	@Test
+	public void testBulkRoundTrip() {
+		long[] hashes = new long[100];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = RandomGeohashes.createWithPrecision(40).longValue();
+		}
+		byte[] buffer = new byte[1 + hashes.length * 8];
+		Base32.encodeAll(hashes, hashes.length, 8, buffer, 1);
+
+		long[] decoded = new long[hashes.length];
+		Base32.decodeAll(buffer, 1, 8, decoded, decoded.length);
+		for (int i = 0; i < hashes.length; i++) {
+			assertEquals(hashes[i], decoded[i]);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectCharactersOutsideTheAlphabet() {
+		Base32.decode("u0qa");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectNonAsciiCharacters() {
+		// 0xe2 & 0x7f is 'b', which is part of the alphabet
+		Base32.decode(new char[] { 'u', 'â' }, 0, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectNonAsciiBytes() {
+		Base32.decode(new byte[] { 'u', (byte) 0xe2 }, 0, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectGeohashesLongerThan12Characters() {
+		Base32.decode("u0qjjjjjjjjjj");
+	}
+}
@@ -8,8 +8,11 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
 import static org.hamcrest.core.IsNot.not;
@@ -87,6 +90,91 @@ public class BoundingBoxGeoHashIteratorTest {
 		}
 	}
 
+	@Test
+	public void itShouldVisitExactlyTheCellsOfTheBox() {
+		Random rand = new Random(5);
+		for (int i = 0; i < 500; i++) {
+			int bits = 1 + rand.nextInt(14);
+			double south = rand.nextDouble() * 180 - 90;
+			double north = south + rand.nextDouble() * (90 - south);
+			double west = rand.nextDouble() * 360 - 180;
+			double east = rand.nextDouble() * 360 - 180;
+			checkCells(TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(south, north, west, east), bits));
+		}
+		checkCells(TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(-90, 90, -180, 180), 0));
+		checkCells(TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(-90, 90, -180, 180), 12));
+		checkCells(TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(30, 40, 170, -170), 11));
+	}
+
+	@Test
+	public void itShouldJumpOverLongRunsOutsideOfTheBox() {
+		BoundingBox box = new BoundingBox(47.3, 47.4, 8.5, 8.6);
+		TwoGeoHashBoundingBox bbox = TwoGeoHashBoundingBox.withBitPrecision(box, 40);
+		BoundingBoxLongIterator iterator = new BoundingBoxLongIterator(bbox);
+		long count = 0;
+		long previous = 0;
+		while (iterator.hasNext()) {
+			long value = iterator.nextLong();
+			GeoHash hash = GeoHash.fromLongValue(value, 40);
+			Assert.assertTrue(count == 0 || Long.compareUnsigned(previous, value) < 0);
+			Assert.assertTrue(bbox.getBoundingBox().contains(hash.getOriginatingPoint()));
+			previous = value;
+			count++;
+		}
+		assertEquals(bbox.getNumberOfHashes(), count);
+		assertEquals(count, bbox.longValues().count());
+		assertEquals(bbox.getNorthEastCorner().longValue(), previous);
+	}
+
+	private void checkCells(TwoGeoHashBoundingBox bbox) {
+		int bits = bbox.getSouthWestCorner().significantBits();
+		long southWest = bbox.getSouthWestCorner().longValue();
+		long northEast = bbox.getNorthEastCorner().longValue();
+		long south = GeoHash.latitudeCell(southWest, bits);
+		long north = GeoHash.latitudeCell(northEast, bits);
+		long west = GeoHash.longitudeCell(southWest, bits);
+		long east = GeoHash.longitudeCell(northEast, bits);
+
+		// first the cells east of the south west corner, then the ones west
+		// of the 180 meridian
+		List<Long> expected = new ArrayList<>();
+		for (int part = 0; part < 2; part++) {
+			for (long ord = 0; ord < 1l << bits; ord++) {
+				long value = bits == 0 ? 0 : ord << (64 - bits);
+				long latitude = GeoHash.latitudeCell(value, bits);
+				long longitude = GeoHash.longitudeCell(value, bits);
+				boolean inColumns;
+				if (west <= east) {
+					inColumns = part == 0 && longitude >= west && longitude <= east;
+				} else {
+					inColumns = part == 0 ? longitude >= west : longitude <= east;
+				}
+				if (inColumns && latitude >= south && latitude <= north) {
+					expected.add(value);
+				}
+			}
+		}
+
+		List<Long> actual = new ArrayList<>();
+		BoundingBoxLongIterator iterator = new BoundingBoxLongIterator(bbox);
+		while (iterator.hasNext()) {
+			actual.add(iterator.nextLong());
+		}
+		assertFalse(iterator.hasNext());
+		assertEquals(bbox.toString(), expected, actual);
+		assertEquals(expected.size(), bbox.getNumberOfHashes());
+
+		List<Long> streamed = new ArrayList<>();
+		bbox.longValues().forEach(streamed::add);
+		assertEquals(expected, streamed);
+
+		BoundingBoxGeoHashIterator hashes = new BoundingBoxGeoHashIterator(bbox);
+		for (long value : expected) {
+			assertEquals(GeoHash.fromLongValue(value, bits), hashes.next());
+		}
+		assertFalse(hashes.hasNext());
+	}
+
 	private List<GeoHash> checkIterator(BoundingBoxGeoHashIterator iter) {
 		BoundingBox newBox = iter.getBoundingBox().getBoundingBox();
 		List<GeoHash> hashes = new ArrayList<>();
@@ -0,0 +1,112 @@
+package ch.hsr.geohash.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+
+public class BoundingBoxSpliteratorTest {
+
+	@Test
+	public void itShouldSplitIntoPartsOfExactSize() {
+		Random rand = new Random(23);
+		for (int i = 0; i < 200; i++) {
+			int bits = rand.nextInt(20);
+			double south = rand.nextDouble() * 180 - 90;
+			double north = south + rand.nextDouble() * (90 - south);
+			double west = rand.nextDouble() * 360 - 180;
+			double east = rand.nextDouble() * 360 - 180;
+			TwoGeoHashBoundingBox bbox = TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(south, north, west,
+					east), bits);
+			List<Long> expected = iterate(bbox);
+
+			List<Long> actual = new ArrayList<>();
+			BoundingBoxSpliterator spliterator = new BoundingBoxSpliterator(bbox);
+			int advances = rand.nextInt(3);
+			for (int j = 0; j < advances; j++) {
+				spliterator.tryAdvance((long value) -> actual.add(value));
+			}
+			splitAndTraverse(spliterator, rand.nextInt(12), actual);
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void itShouldStopSplittingAtSingleHashes() {
+		TwoGeoHashBoundingBox bbox = TwoGeoHashBoundingBox.withCharacterPrecision(new BoundingBox(47.3, 47.3001,
+				8.5, 8.5001), 5);
+		BoundingBoxSpliterator spliterator = new BoundingBoxSpliterator(bbox);
+		assertEquals(1, spliterator.estimateSize());
+		assertNull(spliterator.trySplit());
+		assertTrue(spliterator.tryAdvance((long value) -> {
+		}));
+		assertEquals(0, spliterator.estimateSize());
+		assertFalse(spliterator.tryAdvance((long value) -> {
+		}));
+		assertNull(spliterator.trySplit());
+	}
+
+	@Test
+	public void itShouldStreamInParallel() {
+		TwoGeoHashBoundingBox bbox = TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(30, 60, 170, -150), 30);
+		assertEquals(bbox.getNumberOfHashes(), bbox.longValues().parallel().count());
+		assertEquals(bbox.longValues().sum(), bbox.longValues().parallel().sum());
+		List<Long> sequential = bbox.longValues().limit(100000).boxed().collect(Collectors.toList());
+		assertEquals(sequential, bbox.longValues().parallel().limit(100000).boxed().collect(Collectors.toList()));
+
+		List<GeoHash> hashes = bbox.hashes().parallel().limit(1000).collect(Collectors.toList());
+		assertEquals(1000, hashes.size());
+		assertEquals(bbox.getSouthWestCorner(), hashes.get(0));
+	}
+
+	@Test
+	public void itShouldReportTheSizeOfTheWholeWorld() {
+		TwoGeoHashBoundingBox bbox = TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(-90, 90, -180, 180), 62);
+		BoundingBoxSpliterator spliterator = new BoundingBoxSpliterator(bbox);
+		assertEquals(1l << 62, spliterator.estimateSize());
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+		Spliterator.OfLong prefix = spliterator.trySplit();
+		assertEquals(1l << 61, prefix.estimateSize());
+		assertEquals(1l << 61, spliterator.estimateSize());
+
+		bbox = TwoGeoHashBoundingBox.withBitPrecision(new BoundingBox(-90, 90, -180, 180), 64);
+		spliterator = new BoundingBoxSpliterator(bbox);
+		assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+		assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+	}
+
+	private void splitAndTraverse(Spliterator.OfLong spliterator, int depth, List<Long> values) {
+		long size = spliterator.estimateSize();
+		Spliterator.OfLong prefix = depth > 0 ? spliterator.trySplit() : null;
+		if (prefix == null) {
+			List<Long> traversed = new ArrayList<>();
+			spliterator.forEachRemaining((long value) -> traversed.add(value));
+			assertEquals(size, traversed.size());
+			values.addAll(traversed);
+		} else {
+			assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+			splitAndTraverse(prefix, depth - 1, values);
+			splitAndTraverse(spliterator, depth - 1, values);
+		}
+	}
+
+	private List<Long> iterate(TwoGeoHashBoundingBox bbox) {
+		List<Long> values = new ArrayList<>();
+		BoundingBoxLongIterator iterator = new BoundingBoxLongIterator(bbox);
+		while (iterator.hasNext()) {
+			values.add(iterator.nextLong());
+		}
+		return values;
+	}
+}
@@ -0,0 +1,168 @@
+package ch.hsr.geohash.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.GeoHash;
+
+public class CompressedGeoHashColumnTest {
+
+	@Test
+	public void itShouldDecodeWhatWasEncoded() {
+		Random rand = new Random(31);
+		for (int blockSize : new int[] { 1, 7, 128 }) {
+			long[] values = sortedUnsigned(randomValues(rand, 5000));
+			CompressedGeoHashColumn column = CompressedGeoHashColumn.encode(values, blockSize);
+			assertEquals(values.length, column.size());
+			assertArrayEquals(values, column.toArray());
+			for (int i = 0; i < 200; i++) {
+				int index = rand.nextInt(values.length);
+				assertEquals(values[index], column.get(index));
+				PrimitiveIterator.OfLong iterator = column.iterator(index);
+				for (int j = index; j < Math.min(values.length, index + 300); j++) {
+					assertEquals(values[j], iterator.nextLong());
+				}
+			}
+			assertFalse(column.iterator(values.length).hasNext());
+		}
+	}
+
+	@Test
+	public void itShouldSearchWithoutDecodingEverything() {
+		Random rand = new Random(32);
+		long[] values = sortedUnsigned(randomValues(rand, 3000));
+		CompressedGeoHashColumn column = CompressedGeoHashColumn.encode(values, 64);
+		for (int i = 0; i < 2000; i++) {
+			long value = i % 3 == 0 ? values[rand.nextInt(values.length)] : rand.nextLong();
+			assertEquals(firstAtOrAfter(values, value), column.firstAtOrAfter(value));
+
+			GeoHash hash = GeoHash.fromLongValue(values[rand.nextInt(values.length)], i % 4 == 0 ? 64 : rand.nextInt(40));
+			int expected = 0;
+			for (long v : values) {
+				if (GeoHash.fromLongValue(v, 64).within(hash)) {
+					expected++;
+				}
+			}
+			assertEquals(expected, column.count(hash));
+		}
+		assertEquals(0, column.firstAtOrAfter(0));
+		assertEquals(values.length, column.count(GeoHash.fromLongValue(0, 0)));
+	}
+
+	@Test
+	public void itShouldCompressSortedHashesOfPointsThatLieClose() throws IOException {
+		Random rand = new Random(33);
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = GeoHash.encodeToLong(47 + rand.nextDouble(), 8 + rand.nextDouble(), 60);
+		}
+		values = sortedUnsigned(values);
+		CompressedGeoHashColumn column = CompressedGeoHashColumn.encode(values);
+		assertTrue("encoded size " + column.getEncodedSize(), column.getEncodedSize() < values.length * 5);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		column.writeTo(new DataOutputStream(bytes));
+		assertEquals(16 + column.getEncodedSize(), bytes.size());
+		CompressedGeoHashColumn read = CompressedGeoHashColumn.readFrom(new DataInputStream(new ByteArrayInputStream(
+				bytes.toByteArray())));
+		assertArrayEquals(values, read.toArray());
+		assertEquals(column.firstAtOrAfter(values[500] + 1), read.firstAtOrAfter(values[500] + 1));
+
+		byte[] corrupt = Arrays.copyOf(bytes.toByteArray(), bytes.size());
+		corrupt[3]++;
+		try {
+			CompressedGeoHashColumn.readFrom(new DataInputStream(new ByteArrayInputStream(corrupt)));
+			fail("expected the corrupt column to be rejected");
+		} catch (IOException expected) {
+		}
+	}
+
+	@Test
+	public void itShouldRejectCorruptHeadersWithoutAllocatingThem() throws IOException {
+		// Integer.MAX_VALUE values of one per block in 10 bytes
+		checkRejected(Integer.MAX_VALUE, 1, 0, 10, new byte[10]);
+		// a length of 2 GiB, but only a few bytes follow
+		checkRejected(1, 1, 0, Integer.MAX_VALUE, new byte[10]);
+		// a block length that is negative as an int
+		checkRejected(1, 1, 0, 12, new byte[] { 0, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+				(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x01, 0 });
+	}
+
+	private void checkRejected(int size, int blockSize, int shift, int length, byte[] data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(size);
+		out.writeInt(blockSize);
+		out.writeInt(shift);
+		out.writeInt(length);
+		out.write(data);
+		try {
+			CompressedGeoHashColumn.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			fail("expected the corrupt column to be rejected");
+		} catch (IOException expected) {
+		}
+	}
+
+	@Test
+	public void itShouldHandleEmptyAndConstantColumns() {
+		CompressedGeoHashColumn empty = CompressedGeoHashColumn.encode(new long[0]);
+		assertEquals(0, empty.size());
+		assertEquals(0, empty.firstAtOrAfter(42));
+		assertFalse(empty.iterator().hasNext());
+
+		long[] zeros = new long[300];
+		CompressedGeoHashColumn column = CompressedGeoHashColumn.encode(zeros);
+		assertArrayEquals(zeros, column.toArray());
+		assertEquals(300, column.count(GeoHash.fromLongValue(0, 64)));
+		assertEquals(0, column.count(GeoHash.fromLongValue(1, 64)));
+		assertEquals(300, column.firstAtOrAfter(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void itShouldRejectUnsortedValues() {
+		CompressedGeoHashColumn.encode(new long[] { -1l, 0 });
+	}
+
+	private long[] randomValues(Random rand, int n) {
+		long[] values = new long[n];
+		for (int i = 0; i < n; i++) {
+			// runs of equal and of close values, and a few far apart
+			values[i] = i % 10 == 0 ? rand.nextLong() : (rand.nextLong() >>> rand.nextInt(64)) << 4;
+		}
+		return values;
+	}
+
+	private long[] sortedUnsigned(long[] values) {
+		long[] sorted = values.clone();
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] ^= Long.MIN_VALUE;
+		}
+		Arrays.sort(sorted);
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] ^= Long.MIN_VALUE;
+		}
+		return sorted;
+	}
+
+	private int firstAtOrAfter(long[] values, long value) {
+		int i = 0;
+		while (i < values.length && Long.compareUnsigned(values[i], value) < 0) {
+			i++;
+		}
+		return i;
+	}
+}
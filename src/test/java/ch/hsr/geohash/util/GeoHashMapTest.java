@@ -0,0 +1,144 @@
+package ch.hsr.geohash.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.GeoHash;
+
+public class GeoHashMapTest {
+
+	@Test
+	public void itShouldBehaveLikeAHashMap() {
+		Random rand = new Random(3);
+		GeoHashMap<String> map = new GeoHashMap<>();
+		Map<GeoHash, String> expected = new HashMap<>();
+		for (int i = 0; i < 200000; i++) {
+			GeoHash hash = randomHash(rand);
+			switch (rand.nextInt(4)) {
+			case 0:
+			case 1:
+				String value = "v" + i;
+				assertEquals(expected.put(hash, value), map.put(hash, value));
+				break;
+			case 2:
+				assertEquals(expected.remove(hash), map.remove(hash));
+				break;
+			default:
+				assertEquals(expected.get(hash), map.get(hash.longValue(), hash.significantBits()));
+				assertEquals(expected.containsKey(hash), map.containsKey(hash));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		Map<GeoHash, String> actual = new HashMap<>();
+		map.forEach((hashValue, significantBits, value) -> actual.put(GeoHash.fromLongValue(hashValue,
+				significantBits), value));
+		assertEquals(expected, actual);
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		for (GeoHash hash : expected.keySet()) {
+			assertNull(map.get(hash));
+		}
+	}
+
+	@Test
+	public void itShouldCollectValuesPerCell() {
+		GeoHashMap<List<Integer>> map = new GeoHashMap<>(4);
+		for (int i = 0; i < 100; i++) {
+			map.computeIfAbsent(GeoHash.withBitPrecision(47.3, 8.5 + i * 0.01, 20), ArrayList::new).add(i);
+		}
+		for (int i = 0; i < 100; i++) {
+			assertTrue(map.get(GeoHash.withBitPrecision(47.3, 8.5 + i * 0.01, 20)).contains(i));
+		}
+		List<Integer> entities = new ArrayList<>();
+		map.forEach((hashValue, significantBits, cell) -> entities.addAll(cell));
+		assertEquals(100, entities.size());
+		assertTrue(map.size() > 1 && map.size() < 100);
+	}
+
+	@Test
+	public void itShouldCountLikeAHashMap() {
+		Random rand = new Random(4);
+		GeoHashLongMap map = new GeoHashLongMap(1000);
+		Map<GeoHash, Long> expected = new HashMap<>();
+		for (int i = 0; i < 200000; i++) {
+			GeoHash hash = randomHash(rand);
+			switch (rand.nextInt(4)) {
+			case 0:
+				long delta = rand.nextInt(10) - 3;
+				expected.merge(hash, delta, Long::sum);
+				assertEquals((long) expected.get(hash), map.addTo(hash, delta));
+				break;
+			case 1:
+				long value = rand.nextLong();
+				Long previous = expected.put(hash, value);
+				assertEquals(previous == null ? 0 : previous, map.put(hash, value));
+				break;
+			case 2:
+				previous = expected.remove(hash);
+				assertEquals(previous == null ? 0 : previous, map.remove(hash));
+				break;
+			default:
+				previous = expected.get(hash);
+				assertEquals(previous == null ? 0 : previous, map.get(hash));
+				assertEquals(expected.containsKey(hash), map.containsKey(hash));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		Map<GeoHash, Long> actual = new HashMap<>();
+		map.forEach((hashValue, significantBits, value) -> actual.put(GeoHash.fromLongValue(hashValue,
+				significantBits), value));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void itShouldTellHashesOfDifferentPrecisionsApart() {
+		GeoHashSet set = new GeoHashSet();
+		for (int bits = 0; bits <= 64; bits++) {
+			assertTrue(set.add(0, bits));
+			assertTrue(set.add(-1l, bits) || bits == 0);
+		}
+		assertEquals(129, set.size());
+		assertTrue(set.contains(-1l, 64));
+		assertFalse(set.contains(0x8000000000000000l, 64));
+		// bits beyond the precision are ignored, as in GeoHash.fromLongValue
+		assertTrue(set.contains(0x00000000ffffffffl, 32));
+		assertTrue(set.remove(GeoHash.fromLongValue(-1l, 7)));
+		assertFalse(set.contains(-1l, 7));
+		assertTrue(set.contains(-1l, 8));
+
+		Set<GeoHash> hashes = new HashSet<>();
+		set.forEach((hashValue, significantBits) -> hashes.add(GeoHash.fromLongValue(hashValue, significantBits)));
+		assertEquals(128, hashes.size());
+	}
+
+	@Test
+	public void itShouldRejectSizesBeyondTheLargestCapacity() {
+		for (int expectedSize : new int[] { GeoHashTable.MAX_SIZE + 1, 1610612737, Integer.MAX_VALUE }) {
+			try {
+				new GeoHashSet(expectedSize);
+				fail("expected " + expectedSize + " to be rejected");
+			} catch (IllegalArgumentException expected) {
+			}
+		}
+	}
+
+	/* a small key space, so the operations hit the same keys again */
+	private GeoHash randomHash(Random rand) {
+		int significantBits = 60 + rand.nextInt(5);
+		return GeoHash.fromLongValue(rand.nextInt(5000) * 0x0101010101010101l << 4, significantBits);
+	}
+}
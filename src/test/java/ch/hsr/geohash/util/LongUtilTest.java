@@ -24,6 +24,30 @@ public class LongUtilTest {
 		assertPrefixLength(16, 0x8888300000000000l, 0x8888c00000000000l);
 	}
 
+	@Test
+	public void testSpreadBits() {
+		assertEquals(0x0l, LongUtil.spreadBits(0x0l));
+		assertEquals(0x45l, LongUtil.spreadBits(0xbl));
+		assertEquals(0x5555555555555555l, LongUtil.spreadBits(0xffffffffl));
+		// only the lower 32 bits are spread
+		assertEquals(0x1l, LongUtil.spreadBits(0xffffffff00000001l));
+	}
+
+	@Test
+	public void testCompactBits() {
+		assertEquals(0xbl, LongUtil.compactBits(0x45l));
+		assertEquals(0xffffffffl, LongUtil.compactBits(0x5555555555555555l));
+		// the odd positions are ignored
+		assertEquals(0x0l, LongUtil.compactBits(0xaaaaaaaaaaaaaaaal));
+	}
+
+	@Test
+	public void testCompactingReversesSpreading() {
+		for (long value = 0; value < 0xffffffffl; value += 65537) {
+			assertEquals(value, LongUtil.compactBits(LongUtil.spreadBits(value)));
+		}
+	}
+
 	private void assertPrefixLength(int length, long a, long b) {
 		assertEquals(length, LongUtil.commonPrefixLength(a, b));
 	}
@@ -0,0 +1,57 @@
+package ch.hsr.geohash.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.WGS84Point;
+
+public class SphericalGeodesyTest {
+	private final Random rand = new Random(31);
+
+	@Test
+	public void itShouldBeWithinTheToleranceOfVincenty() {
+		for (int i = 0; i < 5000; i++) {
+			WGS84Point foo = new WGS84Point((rand.nextDouble() - 0.5) * 170, (rand.nextDouble() - 0.5) * 360);
+			WGS84Point bar = VincentyGeodesy.moveInDirection(foo, rand.nextDouble() * 360,
+					Math.pow(10, rand.nextDouble() * 7));
+			double exact = VincentyGeodesy.distanceInMeters(foo, bar);
+			double distance = SphericalGeodesy.distanceInMeters(foo, bar);
+			assertEquals(exact, distance, exact * SphericalGeodesy.ELLIPSOID_TOLERANCE);
+		}
+	}
+
+	@Test
+	public void itShouldComputeKnownDistances() {
+		assertEquals(0, SphericalGeodesy.distanceInMeters(new WGS84Point(10, 20), new WGS84Point(10, 20)), 0);
+		double quarter = Math.PI / 2 * SphericalGeodesy.EARTH_RADIUS;
+		assertEquals(quarter, SphericalGeodesy.distanceInMeters(0, 0, 90, 0), 1e-6);
+		assertEquals(quarter, SphericalGeodesy.distanceInMeters(0, 179, 0, -91), 1e-6);
+	}
+
+	@Test
+	public void itShouldBoundCircles() {
+		checkBoundsCircle(new WGS84Point(47.3, 8.5), 1000);
+		checkBoundsCircle(new WGS84Point(-60, 179.9), 100000);
+		checkBoundsCircle(new WGS84Point(0, -180), 3000000);
+		checkBoundsCircle(new WGS84Point(89.5, 0), 100000);
+
+		BoundingBox box = SphericalGeodesy.circleBoundingBox(new WGS84Point(-60, 179.9), 100000);
+		assertTrue(box.intersects180Meridian());
+		box = SphericalGeodesy.circleBoundingBox(new WGS84Point(89.5, 0), 100000);
+		assertEquals(90, box.getNorthLatitude(), 0);
+		assertEquals(360, box.getLongitudeSize(), 0);
+	}
+
+	private void checkBoundsCircle(WGS84Point center, double radius) {
+		BoundingBox box = SphericalGeodesy.circleBoundingBox(center, radius);
+		for (double bearing = 0; bearing < 360; bearing += 0.5) {
+			WGS84Point point = VincentyGeodesy.moveInDirection(center, bearing, radius);
+			assertTrue(point.toString(), box.contains(point));
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.vector;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.GeoHashBatch;
+
+/**
+ * A drop in replacement for the array methods of {@link GeoHashBatch} that
+ * encodes and decodes several rows per instruction with the Vector API. The
+ * results are bit for bit the same as those of GeoHashBatch and thus of
+ * {@link GeoHash#withBitPrecision(double, double, int)}.<br>
+ * The Vector API is still incubating, so the JVM has to be started with
+ * <code>--add-modules jdk.incubator.vector</code>. Without it, or with the
+ * system property <code>geohash.vector.disabled</code> set to true, all calls
+ * fall back to GeoHashBatch, see {@link #isVectorized()}.
+ */
+public final class VectorGeoHashBatch {
+
+	private static final boolean VECTORIZED = probe();
+
+	private VectorGeoHashBatch() {
+	}
+
+	private static boolean probe() {
+		if (Boolean.getBoolean("geohash.vector.disabled")) {
+			return false;
+		}
+		try {
+			// a single lane would just be a slower scalar loop
+			return VectorKernels.lanes() > 1;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * returns whether the calls are executed with the Vector API, or fall back
+	 * to the scalar loops of {@link GeoHashBatch}.
+	 */
+	public static boolean isVectorized() {
+		return VECTORIZED;
+	}
+
+	/**
+	 * see {@link GeoHashBatch#encode(double[], double[], int, long[], long[])}.
+	 */
+	public static int encode(double[] latitudes, double[] longitudes, int numberOfBits, long[] hashes, long[] validity) {
+		checkColumnLengths(latitudes.length, longitudes.length);
+		return encode(latitudes, longitudes, 0, latitudes.length, numberOfBits, hashes, validity);
+	}
+
+	/**
+	 * see
+	 * {@link GeoHashBatch#encode(double[], double[], int, int, int, long[], long[])}.
+	 */
+	public static int encode(double[] latitudes, double[] longitudes, int offset, int length, int numberOfBits,
+			long[] hashes, long[] validity) {
+		if (!VECTORIZED) {
+			return GeoHashBatch.encode(latitudes, longitudes, offset, length, numberOfBits, hashes, validity);
+		}
+		checkBitPrecision(numberOfBits);
+		checkRange(offset, length, latitudes.length);
+		checkRange(offset, length, longitudes.length);
+		checkRange(offset, length, hashes.length);
+		checkRange(offset >>> 6, GeoHashBatch.validityLength(offset + length) - (offset >>> 6), validity.length);
+		return VectorKernels.encode(latitudes, longitudes, offset, length, numberOfBits, hashes, validity);
+	}
+
+	/**
+	 * see {@link GeoHashBatch#decode(long[], int, double[], double[])}.
+	 */
+	public static void decode(long[] hashes, int significantBits, double[] latitudes, double[] longitudes) {
+		decode(hashes, 0, hashes.length, significantBits, latitudes, longitudes);
+	}
+
+	/**
+	 * see {@link GeoHashBatch#decode(long[], int, int, int, double[], double[])}.
+	 */
+	public static void decode(long[] hashes, int offset, int length, int significantBits, double[] latitudes,
+			double[] longitudes) {
+		if (!VECTORIZED) {
+			GeoHashBatch.decode(hashes, offset, length, significantBits, latitudes, longitudes);
+			return;
+		}
+		checkBitPrecision(significantBits);
+		checkRange(offset, length, hashes.length);
+		checkRange(offset, length, latitudes.length);
+		checkRange(offset, length, longitudes.length);
+		VectorKernels.decode(hashes, offset, length, significantBits, latitudes, longitudes);
+	}
+
+	private static void checkBitPrecision(int numberOfBits) {
+		if (numberOfBits < 0 || numberOfBits > GeoHash.MAX_BIT_PRECISION) {
+			throw new IllegalArgumentException("A Geohash can only be between 0 and " + GeoHash.MAX_BIT_PRECISION
+					+ " bits long!");
+		}
+	}
+
+	private static void checkColumnLengths(int expected, int actual) {
+		if (expected != actual) {
+			throw new IllegalArgumentException("All columns must have the same length, got " + expected + " and "
+					+ actual);
+		}
+	}
+
+	private static void checkRange(int offset, int length, int arrayLength) {
+		if (offset < 0 || length < 0 || offset + length > arrayLength) {
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length)
+					+ ") is out of bounds for length " + arrayLength);
+		}
+	}
+}
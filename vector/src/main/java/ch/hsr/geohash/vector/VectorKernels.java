@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010, Silvio Heuberger @ IFS www.ifs.hsr.ch
+ *
+ * This code is release under the Apache License 2.0.
+ * You should have received a copy of the license
+ * in the LICENSE file. If you have not, see
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package ch.hsr.geohash.vector;
+
+import ch.hsr.geohash.GeoHashBatch;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * the SIMD loops behind {@link VectorGeoHashBatch}. This is the only class
+ * that links against jdk.incubator.vector, so loading it fails with a
+ * {@link LinkageError} if the module is not available at runtime.<br>
+ * Both the quantization and the bit interleaving are done exactly as in
+ * {@link ch.hsr.geohash.GeoHash}: the cell index is estimated by a division
+ * and then corrected against the exact cell boundaries, which are dyadic and
+ * thus exactly representable.
+ */
+final class VectorKernels {
+
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Long> LONGS = DOUBLES.withLanes(long.class);
+
+	private VectorKernels() {
+	}
+
+	static int lanes() {
+		return DOUBLES.length();
+	}
+
+	/**
+	 * encodes the rows [offset, offset + length), which have been checked by
+	 * the caller. Rows that do not fill a whole vector are handed to
+	 * {@link GeoHashBatch}.
+	 */
+	static int encode(double[] latitudes, double[] longitudes, int offset, int length, int numberOfBits,
+			long[] hashes, long[] validity) {
+		int lanes = DOUBLES.length();
+		int latitudeBits = numberOfBits / 2;
+		int longitudeBits = numberOfBits - latitudeBits;
+		int validRows = 0;
+		int end = offset + length;
+		for (int wordStart = offset; wordStart < end; wordStart = (wordStart | 63) + 1) {
+			int wordEnd = Math.min(end, (wordStart | 63) + 1);
+			long word = 0;
+			int i = wordStart;
+			for (; i + lanes <= wordEnd; i += lanes) {
+				DoubleVector latitude = DoubleVector.fromArray(DOUBLES, latitudes, i);
+				DoubleVector longitude = DoubleVector.fromArray(DOUBLES, longitudes, i);
+				// NaN fails both comparisons and is thus invalid as well
+				VectorMask<Double> valid = latitude.abs().compare(VectorOperators.LE, 90.0)
+						.and(longitude.abs().compare(VectorOperators.LE, 180.0));
+				VectorMask<Double> invalid = valid.not();
+				latitude = latitude.blend(0.0, invalid);
+				longitude = longitude.blend(0.0, invalid);
+
+				LongVector hash = interleave(quantize(latitude, -90, 180, latitudeBits),
+						quantize(longitude, -180, 360, longitudeBits), numberOfBits);
+				hash.blend(0l, invalid.cast(LONGS)).intoArray(hashes, i);
+				word |= valid.toLong() << i;
+			}
+			if (i > wordStart) {
+				int index = wordStart >>> 6;
+				long rowsMask = rowsMask(wordStart, i);
+				validity[index] = (validity[index] & ~rowsMask) | word;
+				validRows += Long.bitCount(word);
+			}
+			if (i < wordEnd) {
+				validRows += GeoHashBatch.encode(latitudes, longitudes, i, wordEnd - i, numberOfBits,
+						hashes, validity);
+			}
+		}
+		return validRows;
+	}
+
+	/**
+	 * decodes the hash values [offset, offset + length), which have been
+	 * checked by the caller, into the centers of their bounding boxes.
+	 */
+	static void decode(long[] hashes, int offset, int length, int significantBits, double[] latitudes,
+			double[] longitudes) {
+		int latitudeBits = significantBits / 2;
+		int longitudeBits = significantBits - latitudeBits;
+		double latitudeSize = 180.0 / (1l << latitudeBits);
+		double longitudeSize = 360.0 / (1l << longitudeBits);
+		// with an odd number of bits, the longitude has the last bit
+		int latitudeShift = significantBits & 1;
+		int longitudeShift = latitudeShift ^ 1;
+		int end = offset + length;
+		int i = offset;
+		for (int bound = offset + LONGS.loopBound(length); i < bound; i += LONGS.length()) {
+			LongVector hash = LongVector.zero(LONGS);
+			if (significantBits > 0) {
+				hash = LongVector.fromArray(LONGS, hashes, i).lanewise(VectorOperators.LSHR, 64 - significantBits);
+			}
+			DoubleVector south = lowerBoundary(compact(hash.lanewise(VectorOperators.LSHR, latitudeShift)), -90,
+					latitudeSize);
+			DoubleVector west = lowerBoundary(compact(hash.lanewise(VectorOperators.LSHR, longitudeShift)), -180,
+					longitudeSize);
+			south.add(south.add(latitudeSize)).div(2).intoArray(latitudes, i);
+			west.add(west.add(longitudeSize)).div(2).intoArray(longitudes, i);
+		}
+		if (i < end) {
+			GeoHashBatch.decode(hashes, i, end - i, significantBits, latitudes, longitudes);
+		}
+	}
+
+	/**
+	 * the cell index of each lane, counted from min in steps of range /
+	 * 2^numberOfBits.
+	 */
+	private static LongVector quantize(DoubleVector value, double min, double range, int numberOfBits) {
+		long cells = 1l << numberOfBits;
+		double cellSize = range / cells;
+		LongVector cell = (LongVector) value.sub(min).div(cellSize).convert(VectorOperators.D2L, 0);
+		cell = cell.max(0).min(cells - 1);
+		// the estimate is off by at most one cell, correct it against the
+		// exact cell boundaries
+		VectorMask<Double> belowCell = value.compare(VectorOperators.LT, lowerBoundary(cell, min, cellSize));
+		cell = cell.sub(1, belowCell.cast(LONGS));
+		LongVector next = cell.add(1);
+		VectorMask<Double> aboveCell = value.compare(VectorOperators.GE, lowerBoundary(next, min, cellSize));
+		cell = cell.add(1, aboveCell.cast(LONGS).and(next.compare(VectorOperators.LT, cells)));
+		return cell;
+	}
+
+	private static DoubleVector lowerBoundary(LongVector cell, double min, double cellSize) {
+		DoubleVector boundary = (DoubleVector) cell.convert(VectorOperators.L2D, 0);
+		return boundary.mul(cellSize).add(min);
+	}
+
+	/**
+	 * the left aligned hash of each lane, see GeoHash#interleave.
+	 */
+	private static LongVector interleave(LongVector latitudeCell, LongVector longitudeCell, int numberOfBits) {
+		if (numberOfBits == 0) {
+			return LongVector.zero(LONGS);
+		}
+		LongVector latitude = spread(latitudeCell);
+		LongVector longitude = spread(longitudeCell);
+		LongVector hash;
+		if ((numberOfBits & 1) == 0) {
+			hash = longitude.lanewise(VectorOperators.LSHL, 1).or(latitude);
+		} else {
+			hash = longitude.or(latitude.lanewise(VectorOperators.LSHL, 1));
+		}
+		return hash.lanewise(VectorOperators.LSHL, 64 - numberOfBits);
+	}
+
+	/**
+	 * see LongUtil#spreadBits(long).
+	 */
+	private static LongVector spread(LongVector value) {
+		value = value.and(0x00000000ffffffffl);
+		value = value.or(value.lanewise(VectorOperators.LSHL, 16)).and(0x0000ffff0000ffffl);
+		value = value.or(value.lanewise(VectorOperators.LSHL, 8)).and(0x00ff00ff00ff00ffl);
+		value = value.or(value.lanewise(VectorOperators.LSHL, 4)).and(0x0f0f0f0f0f0f0f0fl);
+		value = value.or(value.lanewise(VectorOperators.LSHL, 2)).and(0x3333333333333333l);
+		value = value.or(value.lanewise(VectorOperators.LSHL, 1)).and(0x5555555555555555l);
+		return value;
+	}
+
+	/**
+	 * see LongUtil#compactBits(long).
+	 */
+	private static LongVector compact(LongVector value) {
+		value = value.and(0x5555555555555555l);
+		value = value.or(value.lanewise(VectorOperators.LSHR, 1)).and(0x3333333333333333l);
+		value = value.or(value.lanewise(VectorOperators.LSHR, 2)).and(0x0f0f0f0f0f0f0f0fl);
+		value = value.or(value.lanewise(VectorOperators.LSHR, 4)).and(0x00ff00ff00ff00ffl);
+		value = value.or(value.lanewise(VectorOperators.LSHR, 8)).and(0x0000ffff0000ffffl);
+		value = value.or(value.lanewise(VectorOperators.LSHR, 16)).and(0x00000000ffffffffl);
+		return value;
+	}
+
+	private static long rowsMask(int wordStart, int wordEnd) {
+		long mask = -1l << wordStart;
+		if ((wordEnd & 63) != 0) {
+			mask &= ~(-1l << wordEnd);
+		}
+		return mask;
+	}
+}
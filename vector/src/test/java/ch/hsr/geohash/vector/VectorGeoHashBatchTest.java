@@ -0,0 +1,122 @@
+package ch.hsr.geohash.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.GeoHashBatch;
+
+public class VectorGeoHashBatchTest {
+	private final Random rand = new Random(4711);
+
+	@Test
+	public void itShouldUseTheVectorApiWhenTheModuleIsAdded() {
+		assertTrue(VectorGeoHashBatch.isVectorized());
+	}
+
+	@Test
+	public void itShouldEncodeLikeWithBitPrecision() {
+		double[] latitudes = new double[1003];
+		double[] longitudes = new double[latitudes.length];
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = (rand.nextDouble() - 0.5) * 180;
+			longitudes[i] = (rand.nextDouble() - 0.5) * 360;
+		}
+		for (int bits = 0; bits <= GeoHash.MAX_BIT_PRECISION; bits++) {
+			long[] hashes = new long[latitudes.length];
+			long[] validity = new long[GeoHashBatch.validityLength(latitudes.length)];
+			assertEquals(latitudes.length, VectorGeoHashBatch.encode(latitudes, longitudes, bits, hashes, validity));
+			for (int i = 0; i < latitudes.length; i++) {
+				assertEquals(GeoHash.withBitPrecision(latitudes[i], longitudes[i], bits).longValue(), hashes[i]);
+			}
+			assertEquals(-1l, validity[0]);
+		}
+	}
+
+	@Test
+	public void itShouldEncodeCellBoundariesLikeWithBitPrecision() {
+		for (int bits = 1; bits <= 32; bits++) {
+			double latitudeSize = 180.0 / (1l << bits);
+			double longitudeSize = 360.0 / (1l << bits);
+			double[] latitudes = new double[16];
+			double[] longitudes = new double[16];
+			int row = 0;
+			for (long cell : new long[] { 1, (1l << bits) / 3, (1l << bits) - 1 }) {
+				double latitude = -90 + cell * latitudeSize;
+				double longitude = -180 + cell * longitudeSize;
+				latitudes[row] = latitude;
+				longitudes[row++] = longitude;
+				latitudes[row] = Math.nextUp(latitude);
+				longitudes[row++] = Math.nextUp(longitude);
+				latitudes[row] = Math.nextAfter(latitude, -90);
+				longitudes[row++] = Math.nextAfter(longitude, -180);
+			}
+			double[][] extremes = { { -90, -180 }, { 90, 180 }, { -0.0, 0.0 },
+					{ Math.nextUp(-90.0), Math.nextUp(-180.0) }, { Math.nextAfter(90.0, 0), Math.nextAfter(180.0, 0) },
+					{ Double.MIN_VALUE, -Double.MIN_VALUE }, { 45, 90 } };
+			for (double[] extreme : extremes) {
+				latitudes[row] = extreme[0];
+				longitudes[row++] = extreme[1];
+			}
+			int maxPrecision = Math.min(2 * bits + 1, GeoHash.MAX_BIT_PRECISION);
+			for (int precision = 2 * bits - 1; precision <= maxPrecision; precision++) {
+				long[] hashes = new long[latitudes.length];
+				VectorGeoHashBatch.encode(latitudes, longitudes, precision, hashes, new long[1]);
+				for (int i = 0; i < latitudes.length; i++) {
+					assertEquals(GeoHash.withBitPrecision(latitudes[i], longitudes[i], precision).longValue(), hashes[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void itShouldMarkInvalidRowsLikeTheScalarBatch() {
+		double[] latitudes = new double[150];
+		double[] longitudes = new double[150];
+		for (int i = 0; i < latitudes.length; i++) {
+			latitudes[i] = (rand.nextDouble() - 0.5) * 180;
+			longitudes[i] = (rand.nextDouble() - 0.5) * 360;
+		}
+		latitudes[3] = 91;
+		latitudes[64] = Double.NaN;
+		longitudes[65] = -180.5;
+		longitudes[149] = Double.POSITIVE_INFINITY;
+
+		long[] expectedHashes = new long[150];
+		long[] expectedValidity = { 0, -1l, 0 };
+		int expectedRows = GeoHashBatch.encode(latitudes, longitudes, 5, 140, 45, expectedHashes, expectedValidity);
+		long[] hashes = new long[150];
+		long[] validity = { 0, -1l, 0 };
+		assertEquals(expectedRows, VectorGeoHashBatch.encode(latitudes, longitudes, 5, 140, 45, hashes, validity));
+		assertArrayEquals(expectedHashes, hashes);
+		assertArrayEquals(expectedValidity, validity);
+	}
+
+	@Test
+	public void itShouldDecodeLikeTheScalarBatch() {
+		long[] hashes = new long[517];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = rand.nextLong();
+		}
+		for (int bits = 0; bits <= GeoHash.MAX_BIT_PRECISION; bits++) {
+			double[] expectedLatitudes = new double[hashes.length];
+			double[] expectedLongitudes = new double[hashes.length];
+			GeoHashBatch.decode(hashes, 3, 511, bits, expectedLatitudes, expectedLongitudes);
+			double[] latitudes = new double[hashes.length];
+			double[] longitudes = new double[hashes.length];
+			VectorGeoHashBatch.decode(hashes, 3, 511, bits, latitudes, longitudes);
+			assertArrayEquals(expectedLatitudes, latitudes, 0);
+			assertArrayEquals(expectedLongitudes, longitudes, 0);
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void itShouldRejectRangesOutOfBounds() {
+		VectorGeoHashBatch.encode(new double[10], new double[10], 5, 6, 20, new long[10], new long[1]);
+	}
+}